@@ -0,0 +1,109 @@
+// k6 负载脚本：N 个用户并发轮询 GET /api/focus/tasks，用于对比平台线程与虚拟线程模式
+//
+//   k6 run -e MODE=platform --summary-export=load/results/platform.json load/poll-tasks.js
+//
+// 环境变量：
+//   BASE_URL       服务地址，默认 http://localhost:8080
+//   USERS          并发轮询用户数（每个用户一个 VU、一个游客账号），默认 1000
+//   DURATION       稳态压测时长，默认 2m
+//   RAMP_UP        从 0 爬升到 USERS 的时长，默认 30s
+//   POLL_INTERVAL  每个用户两次轮询之间的间隔（秒），默认 1
+//   RUNNING_TASK   为 true 时每个用户先开始一个任务，使每次轮询都查库返回列表；
+//                  为 false 时列表为空，轮询走 ETag/304 路径，默认 true
+//   MODE           仅作为结果标签（platform / virtual），写入 summary
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const USERS = parseInt(__ENV.USERS || '1000', 10);
+const DURATION = __ENV.DURATION || '2m';
+const RAMP_UP = __ENV.RAMP_UP || '30s';
+const POLL_INTERVAL = parseFloat(__ENV.POLL_INTERVAL || '1');
+const RUNNING_TASK = (__ENV.RUNNING_TASK || 'true') === 'true';
+const MODE = __ENV.MODE || 'unknown';
+
+// 建号与开任务分批并发发出，避免 setup 本身把注册线程池打满
+const SETUP_BATCH = 50;
+
+export const options = {
+  setupTimeout: '10m',
+  summaryTrendStats: ['avg', 'med', 'p(90)', 'p(95)', 'p(99)', 'max'],
+  tags: { mode: MODE },
+  scenarios: {
+    poll: {
+      executor: 'ramping-vus',
+      startVUs: 0,
+      stages: [
+        { duration: RAMP_UP, target: USERS },
+        { duration: DURATION, target: USERS },
+      ],
+      gracefulRampDown: '10s',
+    },
+  },
+  thresholds: {
+    // 声明在子指标上的阈值会让 summary 单独输出轮询请求（不含 setup）的延迟分布；
+    // 延迟只作记录，失败率超过 1% 时 k6 以非零码退出
+    'http_reqs{name:tasks}': ['count>=0'],
+    'http_req_duration{name:tasks}': ['p(99)>=0'],
+    'http_req_failed{name:tasks}': ['rate<0.01'],
+  },
+};
+
+function batches(count, build) {
+  const results = [];
+  for (let from = 0; from < count; from += SETUP_BATCH) {
+    const requests = [];
+    for (let i = from; i < Math.min(from + SETUP_BATCH, count); i++) {
+      requests.push(build(i));
+    }
+    results.push(...http.batch(requests));
+  }
+  return results;
+}
+
+export function setup() {
+  const logins = batches(USERS, () => ['POST', `${BASE_URL}/api/auth/guest`, null, { tags: { name: 'setup' } }]);
+  const tokens = logins.map((res, i) => {
+    if (res.status !== 200) {
+      throw new Error(`guest login #${i} failed: ${res.status} ${res.body}`);
+    }
+    return res.json('data.token');
+  });
+
+  if (RUNNING_TASK) {
+    // 时长足够覆盖整个压测，任务在轮询期间一直处于运行中
+    const body = JSON.stringify({ taskName: 'load-test', durationSeconds: 4 * 3600 });
+    batches(tokens.length, (i) => ['POST', `${BASE_URL}/api/focus/start`, body, {
+      headers: { 'Content-Type': 'application/json', Authorization: `Bearer ${tokens[i]}` },
+      tags: { name: 'setup' },
+    }]).forEach((res, i) => {
+      if (res.status !== 200) {
+        throw new Error(`start focus #${i} failed: ${res.status} ${res.body}`);
+      }
+    });
+  }
+  return { tokens };
+}
+
+// 每个 VU 记住自己上次拿到的 ETag，与前端轮询行为一致
+let etag = null;
+
+export default function (data) {
+  const token = data.tokens[(__VU - 1) % data.tokens.length];
+  const headers = { Authorization: `Bearer ${token}` };
+  if (etag) {
+    headers['If-None-Match'] = etag;
+  }
+
+  const res = http.get(`${BASE_URL}/api/focus/tasks`, {
+    headers,
+    tags: { name: 'tasks' },
+    responseCallback: http.expectedStatuses(200, 304),
+  });
+  check(res, { 'status is 200 or 304': (r) => r.status === 200 || r.status === 304 });
+  if (res.status === 200) {
+    etag = res.headers['Etag'] || null;
+  }
+
+  sleep(POLL_INTERVAL);
+}
@@ -0,0 +1,24 @@
+package com.antigravity.benchmark;
+
+import com.antigravity.util.JwtUtil;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 基准测试公共工具：在 Spring 容器外按 application.yml 的默认值组装组件
+ */
+final class BenchmarkSupport {
+
+    static final String SECRET = "antigravity-efficiency-clock-secret-key-must-be-at-least-256-bits-long";
+
+    private BenchmarkSupport() {
+    }
+
+    static JwtUtil newJwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 10_000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+}
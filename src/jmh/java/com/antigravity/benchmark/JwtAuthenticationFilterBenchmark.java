@@ -0,0 +1,50 @@
+package com.antigravity.benchmark;
+
+import com.antigravity.security.JwtAuthenticationFilter;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtAuthenticationFilter.doFilterInternal 的完整单次请求开销（含 SecurityContext 写入）
+ * OncePerRequestFilter 会在请求上打标记，MockFilterChain 也只能调用一次，所以每次调用都新建请求对象，
+ * 这部分分配同样计入结果。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        var jwtUtil = BenchmarkSupport.newJwtUtil();
+        filter = new JwtAuthenticationFilter(jwtUtil);
+        authorization = "Bearer " + jwtUtil.generateToken("bench_user", 42L, false);
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse authenticatedRequest() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/focus/tasks");
+        request.addHeader("Authorization", authorization);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,61 @@
+package com.antigravity.benchmark;
+
+import com.antigravity.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtUtil 签发与校验
+ * parseRebuildingParser 对应引入缓存前每次重建 Key 和 Parser 的做法，parseWithSharedParser 为无缓存验签成本，
+ * validateToken 为当前实现（同一 Token 轮询时命中已验签缓存）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private JwtParser sharedParser;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = BenchmarkSupport.newJwtUtil();
+        sharedParser = Jwts.parser().verifyWith(signingKey()).build();
+        token = jwtUtil.generateToken("bench_user", 42L, false);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("bench_user", 42L, false);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public Claims parseWithSharedParser() {
+        return sharedParser.parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Claims parseRebuildingParser() {
+        return Jwts.parser().verifyWith(signingKey()).build().parseSignedClaims(token).getPayload();
+    }
+
+    private static SecretKey signingKey() {
+        return Keys.hmacShaKeyFor(BenchmarkSupport.SECRET.getBytes(StandardCharsets.UTF_8));
+    }
+}
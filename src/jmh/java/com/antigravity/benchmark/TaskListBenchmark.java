@@ -0,0 +1,67 @@
+package com.antigravity.benchmark;
+
+import com.antigravity.dto.TaskListItem;
+import com.antigravity.entity.FocusTask;
+import com.antigravity.entity.TaskStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * GET /api/focus/tasks 的内存部分：FocusTask → TaskListItem 映射与 Jackson 序列化
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskListBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int taskCount;
+
+    private List<FocusTask> tasks;
+    private List<TaskListItem> items;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        tasks = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            FocusTask task = new FocusTask();
+            task.setId((long) i);
+            task.setUserId(42L);
+            task.setTaskName("修炼任务 " + i);
+            task.setDurationSeconds(1500);
+            task.setStatus(TaskStatus.RUNNING);
+            task.setStartedAt(startedAt);
+            task.setExpectedEndAt(startedAt.plusSeconds(1500));
+            tasks.add(task);
+        }
+        items = mapRunningTasks();
+        // 与 Spring Boot 默认配置一致：注册 JavaTimeModule，日期输出为 ISO 字符串
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public List<TaskListItem> mapRunningTasks() {
+        LocalDateTime now = LocalDateTime.now();
+        return tasks.stream()
+                .map(task -> TaskListItem.running(task, now))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public byte[] serializeTaskList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(items);
+    }
+}
@@ -0,0 +1,98 @@
+package com.antigravity.cache;
+
+import com.antigravity.entity.User;
+import com.antigravity.entity.UserLevel;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按写语句精确失效 UserLookupCache
+ * 语句执行后立即失效一次，所在事务结束（提交或回滚）后再失效一次，
+ * 清掉事务未提交期间可能被其他线程读回缓存的旧值。BATCH 会话中的语句同样经过这里。
+ */
+@Component
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class CacheInvalidationInterceptor implements Interceptor {
+
+    private final ObjectProvider<UserLookupCache> userLookupCache;
+
+    /**
+     * UserLookupCache 依赖 Mapper，Mapper 又依赖本插件，延迟获取以避免循环依赖
+     */
+    public CacheInvalidationInterceptor(ObjectProvider<UserLookupCache> userLookupCache) {
+        this.userLookupCache = userLookupCache;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        Object parameter = invocation.getArgs()[1];
+        Runnable eviction = evictionFor(statement.getId(), parameter);
+        if (eviction != null) {
+            eviction.run();
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        eviction.run();
+                    }
+                });
+            }
+        }
+        return result;
+    }
+
+    private Runnable evictionFor(String statementId, Object parameter) {
+        UserLookupCache cache = userLookupCache.getIfAvailable();
+        if (cache == null) {
+            return null;
+        }
+
+        String name = statementId.substring(statementId.lastIndexOf('.', statementId.lastIndexOf('.') - 1) + 1);
+        return switch (name) {
+            case "UserLevelMapper.addExperience", "UserLevelMapper.insertUserLevel", "UserLevelMapper.updateUserLevel" -> {
+                Long userId = parameter instanceof UserLevel level ? level.getUserId() : longParam(parameter, "userId");
+                yield userId != null ? () -> cache.evictUserLevel(userId) : null;
+            }
+            case "UserMapper.update" -> {
+                Long id = parameter instanceof User user ? user.getId() : null;
+                yield id != null ? () -> cache.evictUser(id) : null;
+            }
+            case "UserMapper.deleteIdleGuests" -> {
+                List<Long> ids = List.copyOf(idsParam(parameter));
+                yield () -> ids.forEach(cache::evictUser);
+            }
+            default -> null;
+        };
+    }
+
+    private static Long longParam(Object parameter, String name) {
+        // MyBatis 的 ParamMap 对不存在的键会抛异常，先判断
+        if (parameter instanceof Map<?, ?> params && params.containsKey(name) && params.get(name) instanceof Long value) {
+            return value;
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Long> idsParam(Object parameter) {
+        if (parameter instanceof Map<?, ?> params && params.containsKey("ids") && params.get("ids") instanceof Collection<?> ids) {
+            return (Collection<Long>) ids;
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,77 @@
+package com.antigravity.cache;
+
+import com.antigravity.mapper.TaskListVersionMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * 每个用户任务列表的版本号，用于 /tasks、/history 的条件 GET
+ * 版本存放在 focus_task_version：任务开始 / 完成 / 放弃 / 超时、批量操作与离线同步在写入所在的事务内递增，
+ * 版本与数据同时提交。请求先从主库读版本（一次主键查询）再查列表，
+ * 客户端带回的 ETag 与当前版本一致时直接返回 304，省去列表查询与响应体。
+ * 版本不在实例内存中，请求在多个实例之间来回切换也不会拿到过期的 304。
+ */
+@Component
+public class TaskListVersions {
+
+    private final TaskListVersionMapper taskListVersionMapper;
+
+    public TaskListVersions(TaskListVersionMapper taskListVersionMapper) {
+        this.taskListVersionMapper = taskListVersionMapper;
+    }
+
+    /**
+     * 当前版本对应的弱 ETag；弱校验器不会阻止 Tomcat 压缩响应
+     */
+    public String etag(Long userId) {
+        return "W/\"v" + Long.toString(taskListVersionMapper.selectVersion(userId), 36) + "\"";
+    }
+
+    /**
+     * 递增版本；须在任务写入所在的事务内调用
+     */
+    public void bump(Long userId) {
+        if (userId != null) {
+            taskListVersionMapper.bump(userId);
+        }
+    }
+
+    /**
+     * 一次递增多个用户的版本，按 user_id 升序加锁
+     */
+    public void bumpAll(Collection<Long> userIds) {
+        SortedSet<Long> sorted = new TreeSet<>();
+        userIds.forEach(userId -> {
+            if (userId != null) {
+                sorted.add(userId);
+            }
+        });
+        if (!sorted.isEmpty()) {
+            taskListVersionMapper.bumpAll(sorted);
+        }
+    }
+
+    /**
+     * If-None-Match 是否包含该 ETag（按弱比较，忽略 W/ 前缀；* 匹配任意版本）
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        String opaque = opaqueTag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if ("*".equals(trimmed) || opaque.equals(opaqueTag(trimmed))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
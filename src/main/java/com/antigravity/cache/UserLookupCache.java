@@ -0,0 +1,151 @@
+package com.antigravity.cache;
+
+import com.antigravity.entity.User;
+import com.antigravity.entity.UserLevel;
+import com.antigravity.mapper.UserLevelMapper;
+import com.antigravity.mapper.UserMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * user / user_level 的读穿缓存
+ * 按容量和写入后 TTL 淘汰；失效由 CacheInvalidationInterceptor 在对应写语句执行时和事务结束后各做一次，
+ * 覆盖 Spring 管理的 Mapper 与 BATCH 会话。
+ * 只在事务外读写缓存：事务内的读取直接查库，既能看到本事务的写入，也不会把未提交的数据放进缓存。
+ * 返回的实体都是副本，调用方可以随意修改。未命中的"不存在"结果不缓存。
+ */
+@Component
+public class UserLookupCache {
+
+    private final UserMapper userMapper;
+    private final UserLevelMapper userLevelMapper;
+
+    private final Cache<Long, UserLevel> levelsByUserId;
+    private final Cache<Long, User> usersById;
+    private final Cache<String, Long> userIdsByUsername;
+
+    public UserLookupCache(UserMapper userMapper, UserLevelMapper userLevelMapper,
+                           @Value("${cache.user.max-size:10000}") long maxSize,
+                           @Value("${cache.user.ttl:10m}") Duration ttl) {
+        this.userMapper = userMapper;
+        this.userLevelMapper = userLevelMapper;
+        this.levelsByUserId = newCache(maxSize, ttl);
+        this.usersById = newCache(maxSize, ttl);
+        this.userIdsByUsername = newCache(maxSize, ttl);
+    }
+
+    public Optional<UserLevel> getUserLevel(Long userId) {
+        if (bypass()) {
+            return userLevelMapper.getUserLevelByUserId(userId);
+        }
+        UserLevel cached = levelsByUserId.get(userId,
+                key -> userLevelMapper.getUserLevelByUserId(key).orElse(null));
+        return Optional.ofNullable(cached).map(UserLookupCache::copy);
+    }
+
+    public Optional<User> findById(Long id) {
+        if (bypass()) {
+            return userMapper.findById(id);
+        }
+        User cached = usersById.get(id, key -> userMapper.findById(key).orElse(null));
+        return Optional.ofNullable(cached).map(UserLookupCache::copy);
+    }
+
+    /**
+     * 用户名 → ID 的映射单独缓存，资料更新只需按 ID 失效
+     */
+    public Optional<User> findByUsername(String username) {
+        if (bypass()) {
+            return userMapper.findByUsername(username);
+        }
+        Long id = userIdsByUsername.getIfPresent(username);
+        if (id != null) {
+            Optional<User> user = findById(id);
+            if (user.isPresent() && Objects.equals(user.get().getUsername(), username)) {
+                return user;
+            }
+            // 用户已被删除：丢弃过期映射，重新按用户名查询
+            userIdsByUsername.invalidate(username);
+        }
+
+        Optional<User> user = userMapper.findByUsername(username);
+        user.ifPresent(found -> {
+            userIdsByUsername.put(username, found.getId());
+            usersById.put(found.getId(), copy(found));
+        });
+        return user;
+    }
+
+    public void evictUserLevel(Long userId) {
+        if (userId != null) {
+            levelsByUserId.invalidate(userId);
+        }
+    }
+
+    /**
+     * 失效用户本身及其修为；用户名映射在下次命中时校验
+     */
+    public void evictUser(Long id) {
+        if (id != null) {
+            usersById.invalidate(id);
+            levelsByUserId.invalidate(id);
+        }
+    }
+
+    public CacheStats getUserLevelStats() {
+        return levelsByUserId.stats();
+    }
+
+    public CacheStats getUserStats() {
+        return usersById.stats();
+    }
+
+    public long getUserLevelSize() {
+        return levelsByUserId.estimatedSize();
+    }
+
+    public long getUserSize() {
+        return usersById.estimatedSize();
+    }
+
+    private static boolean bypass() {
+        return TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    private static <K, V> Cache<K, V> newCache(long maxSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    private static UserLevel copy(UserLevel source) {
+        UserLevel level = new UserLevel();
+        level.setId(source.getId());
+        level.setUserId(source.getUserId());
+        level.setTotalExperience(source.getTotalExperience());
+        level.setCultivationRank(source.getCultivationRank());
+        return level;
+    }
+
+    private static User copy(User source) {
+        User user = new User();
+        user.setId(source.getId());
+        user.setUsername(source.getUsername());
+        user.setPassword(source.getPassword());
+        user.setNickname(source.getNickname());
+        user.setIsGuest(source.getIsGuest());
+        user.setCreatedAt(source.getCreatedAt());
+        user.setUpdatedAt(source.getUpdatedAt());
+        return user;
+    }
+}
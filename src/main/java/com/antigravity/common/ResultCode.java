@@ -33,7 +33,12 @@ public enum ResultCode {
     /**
      * 请求的数据不存在
      */
-    NOT_FOUND(404, "请求的资源或数据不存在");
+    NOT_FOUND(404, "请求的资源或数据不存在"),
+
+    /**
+     * 服务过载，主动拒绝 (如密码哈希队列已满)
+     */
+    SERVICE_UNAVAILABLE(503, "服务繁忙，请稍后再试");
 
     private final Integer code;
     private final String message;
@@ -1,18 +1,32 @@
 package com.antigravity.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-import java.util.concurrent.Executor;
-
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
+  /**
+   * With spring.threads.virtual.enabled=true on JDK 21+, every task gets its own virtual thread
+   * and the Hikari pool becomes the real concurrency limit (Connector/J 9.x does not pin carrier threads);
+   * otherwise a small bounded platform pool.
+   */
   @Bean(name = "taskExecutor")
-  public Executor taskExecutor() {
+  public AsyncTaskExecutor taskExecutor(Environment environment) {
+    if (Threading.VIRTUAL.isActive(environment)) {
+      SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("focus-task-");
+      executor.setVirtualThreads(true);
+      return executor;
+    }
+
     ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
     executor.setCorePoolSize(5);
     executor.setMaxPoolSize(10);
@@ -21,4 +35,47 @@ public class AsyncConfig {
     executor.initialize();
     return executor;
   }
+
+  /**
+   * Spring MVC async work, i.e. StreamingResponseBody exports. Each export holds a JDBC connection for as long as
+   * it streams (up to focus.export.timeout), so they get their own small bounded executor and cannot starve the
+   * write-behind flushes or the stats backfill on taskExecutor, nor take more than a few pool connections.
+   */
+  @Bean(name = "mvcAsyncExecutor")
+  public AsyncTaskExecutor mvcAsyncExecutor(Environment environment,
+                                            @Value("${focus.export.threads:4}") int threads,
+                                            @Value("${focus.export.queue-capacity:16}") int queueCapacity) {
+    if (Threading.VIRTUAL.isActive(environment)) {
+      SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mvc-async-");
+      executor.setVirtualThreads(true);
+      executor.setConcurrencyLimit(threads);
+      return executor;
+    }
+
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("mvc-async-");
+    executor.initialize();
+    return executor;
+  }
+
+  /**
+   * BCrypt runs here instead of on Tomcat threads. CPU-bound, so always a fixed platform pool sized to the cores
+   * (also in virtual-thread mode); a full queue rejects new work and the caller sheds load.
+   */
+  @Bean(name = "passwordHashExecutor")
+  public ThreadPoolTaskExecutor passwordHashExecutor(
+      @Value("${security.password.hash-threads:0}") int threads,
+      @Value("${security.password.queue-capacity:64}") int queueCapacity) {
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("password-hash-");
+    executor.initialize();
+    return executor;
+  }
 }
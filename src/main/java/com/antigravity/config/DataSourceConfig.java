@@ -0,0 +1,81 @@
+package com.antigravity.config;
+
+import com.antigravity.datasource.ReadWriteRoutingDataSource;
+import com.antigravity.datasource.ReadYourWritesTracker;
+import com.antigravity.datasource.ReplicaRoutingInterceptor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Read/write split, enabled with spring.datasource.replica.enabled=true.
+ * The primary pool is built from the usual spring.datasource settings and the replica pool from
+ * spring.datasource.replica; everything else (MyBatis, transactions, schema.sql) sees one routing
+ * DataSource that defaults to the primary.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.datasource.replica", name = "enabled", havingValue = "true")
+public class DataSourceConfig {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    dataSource.setPoolName("primary");
+    return dataSource;
+  }
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.replica.hikari")
+  public HikariDataSource replicaDataSource(Environment environment) {
+    DataSourceProperties properties = Binder.get(environment)
+        .bind("spring.datasource.replica", DataSourceProperties.class)
+        .orElseThrow(() -> new IllegalStateException("spring.datasource.replica.url is required"));
+    HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    dataSource.setPoolName("replica");
+    dataSource.setReadOnly(true);
+    return dataSource;
+  }
+
+  @Bean
+  public ReadYourWritesTracker readYourWritesTracker(
+      @Value("${spring.datasource.replica.read-your-writes-window:5s}") Duration window) {
+    return new ReadYourWritesTracker(window);
+  }
+
+  @Bean
+  public ReplicaRoutingInterceptor replicaRoutingInterceptor(ReadYourWritesTracker readYourWritesTracker) {
+    return new ReplicaRoutingInterceptor(readYourWritesTracker);
+  }
+
+  /**
+   * The routing decision needs the transaction's read-only flag, which is only set after the
+   * transaction manager asks for a connection; the lazy proxy defers the real lookup to the first statement.
+   */
+  @Bean
+  @Primary
+  public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                               @Qualifier("replicaDataSource") DataSource replica,
+                               ReadYourWritesTracker readYourWritesTracker) {
+    ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(readYourWritesTracker);
+    routing.setTargetDataSources(Map.of(
+        ReadWriteRoutingDataSource.Route.PRIMARY, primary,
+        ReadWriteRoutingDataSource.Route.REPLICA, replica));
+    routing.setDefaultTargetDataSource(primary);
+    routing.afterPropertiesSet();
+    return new LazyConnectionDataSourceProxy(routing);
+  }
+}
@@ -1,7 +1,10 @@
 package com.antigravity.config;
 
+import com.antigravity.controller.FocusController;
 import com.antigravity.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -37,6 +40,8 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 // 配置授权规则
                 .authorizeHttpRequests(auth -> auth
+                        // 异步派发（SSE、异步返回值）沿用原始请求已通过的认证，不再重复授权
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // 公开的端点（不需要认证）
                         .requestMatchers(
                                 "/api/auth/**",        // 认证相关接口
@@ -44,7 +49,10 @@ public class SecurityConfig {
                                 "/index.html",
                                 "/assets/**",          // 静态资源
                                 "/favicon.ico",
-                                "/error"
+                                "/error",
+                                // 以下两个端点只挂在管理端口上（management.server），业务端口访问不到
+                                "/actuator/health",    // 健康检查
+                                "/actuator/prometheus" // 指标抓取
                         ).permitAll()
                         // 其他所有请求都需要认证
                         .anyRequest().authenticated()
@@ -60,8 +68,9 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:10}") int strength) {
+        // 已有哈希自带 cost，调整强度只影响新生成的哈希
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
@@ -70,6 +79,7 @@ public class SecurityConfig {
         configuration.setAllowedOriginPatterns(Arrays.asList("*"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList(FocusController.NEXT_CURSOR_HEADER));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
@@ -0,0 +1,33 @@
+package com.antigravity.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+  private final AsyncTaskExecutor mvcAsyncExecutor;
+  private final Duration asyncTimeout;
+
+  public WebMvcConfig(@Qualifier("mvcAsyncExecutor") AsyncTaskExecutor mvcAsyncExecutor,
+                      @Value("${focus.export.timeout:30m}") Duration asyncTimeout) {
+    this.mvcAsyncExecutor = mvcAsyncExecutor;
+    this.asyncTimeout = asyncTimeout;
+  }
+
+  /**
+   * StreamingResponseBody exports run on their own bounded executor (see AsyncConfig#mvcAsyncExecutor) rather than
+   * an unbounded SimpleAsyncTaskExecutor, and get long enough to stream a full history. SSE emitters set their own timeout.
+   */
+  @Override
+  public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+    configurer.setTaskExecutor(mvcAsyncExecutor);
+    configurer.setDefaultTimeout(asyncTimeout.toMillis());
+  }
+}
@@ -11,6 +11,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 认证控制器
@@ -23,21 +24,19 @@ public class AuthController {
     private final UserService userService;
 
     /**
-     * 用户注册
+     * 用户注册（异步：密码哈希完成后返回，不占用请求线程）
      */
     @PostMapping("/register")
-    public Result<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
-        AuthResponse response = userService.register(request);
-        return Result.success(response);
+    public CompletableFuture<Result<AuthResponse>> register(@Valid @RequestBody RegisterRequest request) {
+        return userService.register(request).thenApply(Result::success);
     }
 
     /**
-     * 用户登录
+     * 用户登录（异步：密码校验完成后返回，不占用请求线程）
      */
     @PostMapping("/login")
-    public Result<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
-        AuthResponse response = userService.login(request);
-        return Result.success(response);
+    public CompletableFuture<Result<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
+        return userService.login(request).thenApply(Result::success);
     }
 
     /**
@@ -54,9 +53,8 @@ public class AuthController {
      */
     @GetMapping("/check-username")
     public Result<Map<String, Boolean>> checkUsername(@RequestParam String username) {
-        // 这里需要在 UserMapper 中添加 existsByUsername 方法
         Map<String, Boolean> result = new HashMap<>();
-        result.put("available", true); // 简化实现
+        result.put("available", userService.isUsernameAvailable(username));
         return Result.success(result);
     }
 }
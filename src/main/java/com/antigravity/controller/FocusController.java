@@ -1,17 +1,35 @@
 package com.antigravity.controller;
 
+import com.antigravity.cache.TaskListVersions;
+import com.antigravity.common.ResultCode;
+import com.antigravity.datasource.ReplicaUsage;
 import com.antigravity.dto.*;
+import com.antigravity.entity.CultivationRank;
 import com.antigravity.entity.FocusTask;
+import com.antigravity.entity.TaskStatus;
 import com.antigravity.entity.UserLevel;
+import com.antigravity.exception.BusinessException;
 import com.antigravity.mapper.FocusMapper;
 import com.antigravity.mapper.UserLevelMapper;
+import com.antigravity.service.FocusService;
+import com.antigravity.service.FocusBatchService;
+import com.antigravity.service.FocusEventHub;
+import com.antigravity.service.FocusExportService;
+import com.antigravity.service.FocusStatsService;
+import com.antigravity.service.FocusSyncService;
+import com.antigravity.service.LeaderboardService;
+import com.antigravity.util.JwtUtil;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Random;
 import java.util.stream.Collectors;
 
 @RestController
@@ -22,22 +40,41 @@ public class FocusController {
   private final FocusMapper focusMapper;
   private final UserLevelMapper userLevelMapper;
   private final com.antigravity.util.SecurityUtils securityUtils;
-  private final Random random = new Random();
-
-  private static final String[] RANKS = {
-      "炼气期", "筑基期", "金丹期",
-      "元婴期", "化神期", "炼虚期",
-      "合体期", "大乘期", "渡劫期",
-      "人仙境", "真仙境", "玄仙境",
-      "金仙境", "太乙境", "大罗境",
-      "道祖境", "混元无极", "创世神"
-  };
-
-  public FocusController(FocusMapper focusMapper, UserLevelMapper userLevelMapper, 
-                         com.antigravity.util.SecurityUtils securityUtils) {
+  private final FocusService focusService;
+  private final FocusEventHub focusEventHub;
+  private final LeaderboardService leaderboardService;
+  private final FocusStatsService focusStatsService;
+  private final FocusBatchService focusBatchService;
+  private final FocusExportService focusExportService;
+  private final FocusSyncService focusSyncService;
+  private final TaskListVersions taskListVersions;
+  private final JwtUtil jwtUtil;
+
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  private static final int MAX_HISTORY_PAGE_SIZE = 100;
+  private static final int MAX_LEADERBOARD_SIZE = 100;
+  private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson;charset=UTF-8");
+  private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+  private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+  public FocusController(FocusMapper focusMapper, UserLevelMapper userLevelMapper,
+                         com.antigravity.util.SecurityUtils securityUtils, FocusService focusService,
+                         FocusEventHub focusEventHub, LeaderboardService leaderboardService,
+                         FocusStatsService focusStatsService, FocusBatchService focusBatchService,
+                         FocusExportService focusExportService, FocusSyncService focusSyncService,
+                         TaskListVersions taskListVersions, JwtUtil jwtUtil) {
     this.focusMapper = focusMapper;
     this.userLevelMapper = userLevelMapper;
     this.securityUtils = securityUtils;
+    this.focusService = focusService;
+    this.focusEventHub = focusEventHub;
+    this.leaderboardService = leaderboardService;
+    this.focusStatsService = focusStatsService;
+    this.focusBatchService = focusBatchService;
+    this.focusExportService = focusExportService;
+    this.focusSyncService = focusSyncService;
+    this.taskListVersions = taskListVersions;
+    this.jwtUtil = jwtUtil;
   }
 
   /**
@@ -46,39 +83,7 @@ public class FocusController {
   @PostMapping("/start")
   public StartFocusResponse startFocus(@RequestBody StartFocusRequest request) {
     Long userId = securityUtils.getCurrentUserId();
-    System.out.println("Creating task for user: " + userId + ", task: " + request.taskName());
-    
-    FocusTask task = new FocusTask();
-    task.setUserId(userId);
-    task.setTaskName(request.taskName());
-    task.setDurationSeconds(request.durationSeconds());
-    task.setStatus("RUNNING");
-
-    LocalDateTime startedAt;
-    if (request.startTime() != null && !request.startTime().isEmpty()) {
-      try {
-        // Parse ISO format "yyyy-MM-ddTHH:mm:ss" usually, expecting standard format
-        // from frontend
-        startedAt = LocalDateTime.parse(request.startTime());
-      } catch (Exception e) {
-        // Fallback or specific custom format
-        startedAt = LocalDateTime.now();
-      }
-    } else {
-      startedAt = LocalDateTime.now();
-    }
-
-    task.setStartedAt(startedAt);
-    task.setExpectedEndAt(startedAt.plusSeconds(request.durationSeconds()));
-
-    focusMapper.insertTask(task);
-    System.out.println("Task created with ID: " + task.getId() + " for user: " + task.getUserId());
-
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    return new StartFocusResponse(
-        task.getId(),
-        "修炼任务已开始:" + request.taskName(),
-        task.getExpectedEndAt().format(formatter));
+    return focusService.startFocus(userId, request);
   }
 
   /**
@@ -87,130 +92,181 @@ public class FocusController {
   @PutMapping("/{taskId}/complete")
   public FocusResponse completeTask(@PathVariable Long taskId) {
     Long userId = securityUtils.getCurrentUserId();
-    
-    FocusTask task = focusMapper.selectTaskById(taskId);
-
-    if (task == null || !task.getUserId().equals(userId)) {
-      throw new RuntimeException("Task not found");
-    }
+    return focusService.completeTask(userId, taskId);
+  }
 
-    if ("COMPLETED".equals(task.getStatus())) {
-      UserLevel userLevel = getUserLevel(userId);
-      return new FocusResponse("修炼此前已圆满完成", userLevel.getCultivationRank(), userLevel.getTotalExperience(), false);
-    }
+  /**
+   * Abandon a focus task by ID
+   */
+  @DeleteMapping("/{taskId}")
+  public void abandonTask(@PathVariable Long taskId) {
+    Long userId = securityUtils.getCurrentUserId();
+    focusService.abandonTask(userId, taskId);
+  }
 
-    if (!"RUNNING".equals(task.getStatus())) {
-      throw new RuntimeException("任务状态异常，无法完成。当前状态: " + task.getStatus());
-    }
+  /**
+   * Start / complete / abandon many tasks in one request and one transaction.
+   * Results come back per item, in request order; one failed item does not roll back the others.
+   */
+  @PostMapping("/batch")
+  public BatchFocusResponse batch(@RequestBody BatchFocusRequest request) {
+    Long userId = securityUtils.getCurrentUserId();
+    return focusBatchService.execute(userId, request);
+  }
 
-    // Update task status
-    LocalDateTime now = LocalDateTime.now();
-    focusMapper.updateTaskStatus(taskId, "COMPLETED", now);
+  /**
+   * Upload sessions completed while offline, each with a client-generated idempotency key.
+   * New sessions are inserted in one statement and their experience is applied once; resubmitted keys are
+   * reported as DUPLICATE, so the client can safely retry the whole payload.
+   */
+  @PostMapping("/sync")
+  public SyncSessionsResponse syncSessions(@RequestBody SyncSessionsRequest request) {
+    Long userId = securityUtils.getCurrentUserId();
+    return focusSyncService.sync(userId, request);
+  }
 
-    // Update User Level
-    UserLevel user = getUserLevel(userId);
+  /**
+   * Exchange the bearer token for a short-lived, single-use ticket to open the event stream with.
+   * EventSource cannot send headers, and the long-lived token must not appear in URLs; request a new ticket
+   * for every (re)connect.
+   */
+  @PostMapping("/events/ticket")
+  public SseTicketResponse createEventsTicket() {
+    return new SseTicketResponse(jwtUtil.generateSseTicket(securityUtils.getCurrentPrincipal()),
+        jwtUtil.getSseTicketTtl().toSeconds());
+  }
 
-    long expGain = task.getDurationSeconds();
-    user.setTotalExperience(user.getTotalExperience() + expGain);
+  /**
+   * Live task events (started / completed / abandoned / expired) as Server-Sent Events.
+   * Authenticate with ?ticket= from POST /events/ticket (or an Authorization header when the client can set one).
+   * The first event carries the server clock so the client can count down locally instead of polling.
+   */
+  @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamEvents() {
+    Long userId = securityUtils.getCurrentUserId();
+    return focusEventHub.subscribe(userId);
+  }
 
-    // Random Rank Up Logic
-    boolean levelUp = false;
-    // Higher chance for rank up (33%) if task > 5 mins
-    if (task.getDurationSeconds() >= 10 && random.nextInt(100) < 33) {
-      int rankIndex = random.nextInt(RANKS.length);
-      String newRankBase = RANKS[rankIndex];
-      int stage = random.nextInt(9) + 1;
-      user.setCultivationRank(newRankBase + " - " + stage + "层");
-      levelUp = true;
+  /**
+   * Get all running tasks.
+   * Running tasks count down, so only an empty list carries an ETag; a matching If-None-Match
+   * is answered with 304 after a single primary-key lookup of the version.
+   */
+  @GetMapping("/tasks")
+  public ResponseEntity<List<TaskListItem>> getRunningTasks(
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    Long userId = securityUtils.getCurrentUserId();
+    // Read the version before the query, so the data is never older than the ETag sent with it
+    String etag = taskListVersions.etag(userId);
+    if (TaskListVersions.matches(ifNoneMatch, etag)) {
+      return notModified(etag);
     }
 
-    userLevelMapper.updateUserLevel(user);
-
-    String message = levelUp
-        ? "✨ 天地异象！渡劫成功！境界提升至 " + user.getCultivationRank() + "！ ✨"
-        : "修炼结束，吸收了 " + expGain + " 点天地灵气。";
+    ReplicaUsage.Tracked<List<FocusTask>> read = ReplicaUsage.track(() -> focusMapper.selectRunningTasksByUserId(userId));
+    List<FocusTask> tasks = read.value();
+    LocalDateTime now = LocalDateTime.now();
 
-    return new FocusResponse(message, user.getCultivationRank(), user.getTotalExperience(), levelUp);
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(REVALIDATE);
+    // A replica may lag behind the version; its answers carry no ETag so a stale body is never revalidated
+    if (tasks.isEmpty() && !read.fromReplica()) {
+      response.eTag(etag);
+    }
+    return response.body(tasks.stream()
+        .map(task -> TaskListItem.running(task, now))
+        .collect(Collectors.toList()));
   }
 
-  private UserLevel getUserLevel(Long userId) {
-    return userLevelMapper.getUserLevelByUserId(userId).orElseGet(() -> {
-      UserLevel newUserLevel = new UserLevel();
-      newUserLevel.setUserId(userId);
-      newUserLevel.setTotalExperience(0L);
-      newUserLevel.setCultivationRank("炼气期 - 1层");
-      userLevelMapper.insertUserLevel(newUserLevel);
-      return newUserLevel;
-    });
+  /**
+   * Get completed task history, one keyset page at a time.
+   * The cursor for the next page is returned in the X-Next-Cursor header (absent on the last page).
+   * Pages are validated with the user's task list ETag; an unchanged page is answered with 304.
+   * Pages served by a read replica carry no ETag.
+   */
+  @GetMapping("/history")
+  public ResponseEntity<List<TaskListItem>> getTaskHistory(@RequestParam(defaultValue = "50") int limit,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    Long userId = securityUtils.getCurrentUserId();
+    String etag = taskListVersions.etag(userId);
+    if (TaskListVersions.matches(ifNoneMatch, etag)) {
+      return notModified(etag);
+    }
+    int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+    HistoryCursor after = (cursor != null && !cursor.isEmpty()) ? HistoryCursor.decode(cursor) : null;
+
+    // Fetch one extra row to learn whether another page exists
+    ReplicaUsage.Tracked<List<FocusTask>> read = ReplicaUsage.track(() -> focusMapper.selectCompletedTasksPage(userId,
+        after != null ? after.completedAt() : null,
+        after != null ? after.id() : null,
+        pageSize + 1));
+    List<FocusTask> tasks = read.value();
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(REVALIDATE);
+    if (!read.fromReplica()) {
+      response.eTag(etag);
+    }
+    if (tasks.size() > pageSize) {
+      tasks = tasks.subList(0, pageSize);
+      FocusTask last = tasks.get(pageSize - 1);
+      response.header(NEXT_CURSOR_HEADER, new HistoryCursor(last.getCompletedAt(), last.getId()).encode());
+    }
+
+    return response.body(tasks.stream()
+        .map(TaskListItem::finished)
+        .collect(Collectors.toList()));
   }
 
   /**
-   * Abandon a focus task by ID
+   * Full task history (running, finished and archived) streamed as NDJSON or CSV.
+   * Rows are read through a database cursor and written as they arrive; memory does not grow with history size.
    */
-  @DeleteMapping("/{taskId}")
-  public void abandonTask(@PathVariable Long taskId) {
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportHistory(@RequestParam(defaultValue = "ndjson") String format) {
     Long userId = securityUtils.getCurrentUserId();
-    FocusTask task = focusMapper.selectTaskById(taskId);
-    if (task != null && task.getUserId().equals(userId) && "RUNNING".equals(task.getStatus())) {
-      focusMapper.updateTaskStatus(taskId, "ABANDONED", LocalDateTime.now());
+    boolean csv = "csv".equalsIgnoreCase(format);
+    if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+      throw new BusinessException(ResultCode.BAD_REQUEST, "不支持的导出格式: " + format);
     }
+
+    StreamingResponseBody body = csv
+        ? out -> focusExportService.writeCsv(userId, out)
+        : out -> focusExportService.writeNdjson(userId, out);
+    return ResponseEntity.ok()
+        .contentType(csv ? CSV : NDJSON)
+        .header(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"focus-history." + (csv ? "csv" : "ndjson") + "\"")
+        .body(body);
   }
 
   /**
-   * Get all running tasks
+   * Focus time today / this week / per day / per task name, read from the rollup tables only
    */
-  @GetMapping("/tasks")
-  public List<TaskListItem> getRunningTasks() {
+  @GetMapping("/stats")
+  public FocusStatsResponse getStats(@RequestParam(defaultValue = "7") int days) {
     Long userId = securityUtils.getCurrentUserId();
-    System.out.println("Loading running tasks for user: " + userId);
-    List<FocusTask> tasks = focusMapper.selectRunningTasksByUserId(userId);
-    System.out.println("Found " + tasks.size() + " running tasks");
-    LocalDateTime now = LocalDateTime.now();
+    return focusStatsService.getStats(userId, days);
+  }
 
-    return tasks.stream()
-        .map(task -> {
-          long remainingSeconds = 0;
-          if (task.getExpectedEndAt() != null) {
-            Duration duration = Duration.between(now, task.getExpectedEndAt());
-            remainingSeconds = Math.max(0, duration.getSeconds());
-          }
-
-          return new TaskListItem(
-              task.getId(),
-              task.getTaskName(),
-              task.getDurationSeconds(),
-              task.getStatus(),
-              task.getStartedAt(),
-              task.getExpectedEndAt(),
-              task.getCompletedAt(),
-              remainingSeconds);
-        })
-        .collect(Collectors.toList());
+  /**
+   * Top users by total experience, served from the in-memory leaderboard
+   */
+  @GetMapping("/leaderboard")
+  public List<LeaderboardEntry> getLeaderboard(@RequestParam(defaultValue = "10") int limit) {
+    return leaderboardService.top(Math.max(1, Math.min(limit, MAX_LEADERBOARD_SIZE)));
   }
 
   /**
-   * Get completed task history
+   * The current user's leaderboard rank
    */
-  @GetMapping("/history")
-  public List<TaskListItem> getTaskHistory(@RequestParam(defaultValue = "50") int limit) {
+  @GetMapping("/leaderboard/me")
+  public LeaderboardRank getMyRank() {
     Long userId = securityUtils.getCurrentUserId();
-    List<FocusTask> tasks = focusMapper.selectCompletedTasksByUserId(userId, limit);
-
-    return tasks.stream()
-        .map(task -> new TaskListItem(
-            task.getId(),
-            task.getTaskName(),
-            task.getDurationSeconds(),
-            task.getStatus(),
-            task.getStartedAt(),
-            task.getExpectedEndAt(),
-            task.getCompletedAt(),
-            0L))
-        .collect(Collectors.toList());
+    return leaderboardService.rankOf(userId);
   }
 
   /**
-   * Legacy endpoint for backward compatibility
+   * Legacy endpoint for backward compatibility.
+   * Not idempotent and not tied to the current user; offline clients should use /sync instead.
    */
   @PostMapping("/complete")
   public FocusResponse completeFocus(@RequestBody FocusRequest request) {
@@ -218,7 +274,7 @@ public class FocusController {
     FocusTask task = new FocusTask();
     task.setTaskName(request.taskName());
     task.setDurationSeconds(request.durationSeconds());
-    task.setStatus("COMPLETED");
+    task.setStatus(TaskStatus.COMPLETED);
     task.setCompletedAt(LocalDateTime.now());
     focusMapper.insertTask(task);
 
@@ -228,27 +284,27 @@ public class FocusController {
       user = new UserLevel();
       user.setId(1L);
       user.setTotalExperience(0L);
-      user.setCultivationRank("炼气期 - 1层");
+      user.setCultivationRank(CultivationRank.INITIAL);
     }
 
     long expGain = request.durationSeconds();
     user.setTotalExperience(user.getTotalExperience() + expGain);
 
-    boolean levelUp = false;
-    if (request.durationSeconds() >= 10 && random.nextInt(100) < 30) {
-      int rankIndex = random.nextInt(RANKS.length);
-      String newRankBase = RANKS[rankIndex];
-      int stage = random.nextInt(9) + 1;
-      user.setCultivationRank(newRankBase + " - " + stage + "层");
-      levelUp = true;
-    }
+    // The rank follows from total experience (rank_code is a generated column)
+    CultivationRank rank = CultivationRank.forExperience(user.getTotalExperience());
+    boolean levelUp = rank.compareTo(user.getCultivationRank()) > 0;
+    user.setCultivationRank(rank);
 
     userLevelMapper.updateUserLevel(user);
 
     String message = levelUp
-        ? "渡劫成功！境界提升至 " + user.getCultivationRank() + "！"
+        ? "渡劫成功！境界提升至 " + rank + "！"
         : "修炼结束，吸收了 " + expGain + " 点天地灵气。";
 
-    return new FocusResponse(message, user.getCultivationRank(), user.getTotalExperience(), levelUp);
+    return new FocusResponse(message, rank.displayName(), user.getTotalExperience(), levelUp);
+  }
+
+  private static <T> ResponseEntity<T> notModified(String etag) {
+    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).eTag(etag).build();
   }
 }
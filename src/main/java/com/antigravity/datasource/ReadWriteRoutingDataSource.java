@@ -0,0 +1,55 @@
+package com.antigravity.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 主从路由
+ * 只读事务（@Transactional(readOnly = true)）和事务外的 @ReplicaRead 查询走从库，其余一律走主库；
+ * 当前用户处于读己之写窗口内时也走主库。
+ * 需要包在 LazyConnectionDataSourceProxy 里使用：事务开始时并不真正取连接，
+ * 等第一条语句执行、只读标记已经生效后才在这里决定去向。
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> REPLICA_HINT = new ThreadLocal<>();
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReadWriteRoutingDataSource(ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    /**
+     * 设置事务外查询的从库提示，返回之前的值以便调用方恢复
+     */
+    static Boolean setReplicaHint(Boolean hint) {
+        Boolean previous = REPLICA_HINT.get();
+        if (hint == null) {
+            REPLICA_HINT.remove();
+        } else {
+            REPLICA_HINT.set(hint);
+        }
+        return previous;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isActualTransactionActive()
+                ? TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                : Boolean.TRUE.equals(REPLICA_HINT.get());
+        Route route = readOnly && !readYourWritesTracker.isCurrentUserPinned() ? Route.REPLICA : Route.PRIMARY;
+        log.debug("数据源路由: readOnly={}, route={}", readOnly, route);
+        if (route == Route.REPLICA) {
+            ReplicaUsage.recordReplicaRead();
+        }
+        return route;
+    }
+}
@@ -0,0 +1,83 @@
+package com.antigravity.datasource;
+
+import com.antigravity.security.JwtPrincipal;
+import com.antigravity.service.FocusTaskEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * 读己之写
+ * 用户发生写入后的一段时间内（窗口应大于从库的复制延迟），该用户的读取一律走主库，
+ * 刚开始、完成或同步的任务不会因为从库尚未追上而"消失"。
+ * 写入由 ReplicaRoutingInterceptor（当前登录用户执行的写语句）和任务事件（含超时等后台写入）登记，
+ * 事务内的写入在事务结束后再登记一次，窗口从提交时开始计算。
+ * 登记只保存在本实例内存中，前提是同一用户的请求落在同一实例上（单实例或按用户粘性路由）；
+ * 请求落到其他实例时可能读到从库尚未追上的数据。复制延迟超过窗口时同样如此，
+ * 因此任务列表接口不为从库回答的响应签发 ETag（见 ReplicaUsage），旧数据不会被 304 固定下来。
+ */
+public class ReadYourWritesTracker {
+
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public void markWrite(Long userId) {
+        if (userId != null) {
+            recentWriters.put(userId, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * 登记当前登录用户的写入：立即登记，所在事务结束后再登记一次
+     */
+    public void markCurrentUserWrite() {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return;
+        }
+        markWrite(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    markWrite(userId);
+                }
+            });
+        }
+    }
+
+    public boolean isPinned(Long userId) {
+        return userId != null && recentWriters.getIfPresent(userId) != null;
+    }
+
+    public boolean isCurrentUserPinned() {
+        return isPinned(currentUserId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskEvent(FocusTaskEvent event) {
+        markWrite(event.userId());
+    }
+
+    /**
+     * 当前请求的登录用户；后台线程或匿名请求返回 null
+     */
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal.userId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.antigravity.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记可以由从库回答的只读 Mapper 方法
+ * 只在事务外调用时生效（事务内沿用事务的连接），且当前用户不在读己之写窗口内；未开启从库时无作用。
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReplicaRead {
+}
@@ -0,0 +1,86 @@
+package com.antigravity.datasource;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 事务外执行 @ReplicaRead 查询时给路由数据源打上从库提示；写语句登记当前用户的读己之写窗口
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class,
+                        CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "queryCursor",
+                args = {MappedStatement.class, Object.class, RowBounds.class})
+})
+public class ReplicaRoutingInterceptor implements Interceptor {
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    /**
+     * 语句 ID → 对应 Mapper 方法是否标注了 @ReplicaRead
+     */
+    private final Map<String, Boolean> replicaReads = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingInterceptor(ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        if ("update".equals(invocation.getMethod().getName())) {
+            readYourWritesTracker.markCurrentUserWrite();
+            return invocation.proceed();
+        }
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                || !replicaReads.computeIfAbsent(statement.getId(), ReplicaRoutingInterceptor::isReplicaRead)) {
+            return invocation.proceed();
+        }
+        Boolean previous = ReadWriteRoutingDataSource.setReplicaHint(Boolean.TRUE);
+        try {
+            return invocation.proceed();
+        } finally {
+            ReadWriteRoutingDataSource.setReplicaHint(previous);
+        }
+    }
+
+    private static boolean isReplicaRead(String statementId) {
+        int dot = statementId.lastIndexOf('.');
+        if (dot < 0) {
+            return false;
+        }
+        String methodName = statementId.substring(dot + 1);
+        try {
+            Class<?> mapper = Class.forName(statementId.substring(0, dot));
+            return Arrays.stream(mapper.getMethods())
+                    .filter(method -> method.getName().equals(methodName))
+                    .anyMatch(ReplicaRoutingInterceptor::annotated);
+        } catch (ClassNotFoundException e) {
+            // XML 命名空间或 selectKey 等生成的语句
+            return false;
+        }
+    }
+
+    private static boolean annotated(Method method) {
+        return method.isAnnotationPresent(ReplicaRead.class);
+    }
+}
@@ -0,0 +1,48 @@
+package com.antigravity.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * 记录一段读取过程中是否有查询实际路由到了从库
+ * 从库可能落后于主库，由从库回答的响应不能签发主库版本号的 ETag，
+ * 否则之后的条件请求会一直对这份旧数据返回 304。未开启读写分离时始终为 false。
+ */
+public final class ReplicaUsage {
+
+    private static final ThreadLocal<boolean[]> CURRENT = new ThreadLocal<>();
+
+    private ReplicaUsage() {
+    }
+
+    /**
+     * 读取结果及其是否（部分）来自从库
+     */
+    public record Tracked<T>(T value, boolean fromReplica) {
+    }
+
+    public static <T> Tracked<T> track(Supplier<T> reader) {
+        boolean[] previous = CURRENT.get();
+        boolean[] used = {false};
+        CURRENT.set(used);
+        try {
+            return new Tracked<>(reader.get(), used[0]);
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+                previous[0] |= used[0];
+            }
+        }
+    }
+
+    /**
+     * 由路由数据源在选中从库时调用
+     */
+    static void recordReplicaRead() {
+        boolean[] used = CURRENT.get();
+        if (used != null) {
+            used[0] = true;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.antigravity.dto;
+
+import java.util.List;
+
+/**
+ * 批量操作请求；按列表顺序返回逐项结果
+ */
+public record BatchFocusRequest(List<Operation> operations) {
+
+    public enum Type {
+        START, COMPLETE, ABANDON
+    }
+
+    /**
+     * START 需要 taskName / durationSeconds（startTime 可选），COMPLETE / ABANDON 需要 taskId
+     */
+    public record Operation(Type op, Long taskId, String taskName, Integer durationSeconds, String startTime) {
+    }
+}
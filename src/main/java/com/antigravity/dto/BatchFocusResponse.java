@@ -0,0 +1,16 @@
+package com.antigravity.dto;
+
+import java.util.List;
+
+/**
+ * 批量操作结果；experience 为本批完成任务后的修为，没有成功完成的任务时为 null
+ */
+public record BatchFocusResponse(List<Item> results, FocusResponse experience) {
+
+    /**
+     * 单项结果；index 为该项在请求列表中的下标，expectedEndAt 只在 START 成功时返回
+     */
+    public record Item(int index, BatchFocusRequest.Type op, boolean success, Long taskId, String message,
+                       String expectedEndAt) {
+    }
+}
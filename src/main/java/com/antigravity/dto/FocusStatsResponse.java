@@ -0,0 +1,22 @@
+package com.antigravity.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 专注统计看板：今日、本周（周一起）、最近 N 天逐日明细以及按任务名的累计
+ */
+public record FocusStatsResponse(
+    long todaySeconds,
+    int todayTaskCount,
+    long weekSeconds,
+    int weekTaskCount,
+    List<DailyFocus> days,
+    List<TaskNameFocus> topTasks) {
+
+    public record DailyFocus(LocalDate date, long focusSeconds, int taskCount) {
+    }
+
+    public record TaskNameFocus(String taskName, long focusSeconds, int taskCount) {
+    }
+}
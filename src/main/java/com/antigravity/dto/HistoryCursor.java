@@ -0,0 +1,30 @@
+package com.antigravity.dto;
+
+import com.antigravity.common.ResultCode;
+import com.antigravity.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 历史记录分页游标
+ * 指向上一页最后一条记录的 (completed_at, id)，对前端以 Base64URL 编码的不透明字符串传递。
+ */
+public record HistoryCursor(LocalDateTime completedAt, Long id) {
+
+    public String encode() {
+        String raw = completedAt + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static HistoryCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int comma = raw.indexOf(',');
+            return new HistoryCursor(LocalDateTime.parse(raw.substring(0, comma)), Long.valueOf(raw.substring(comma + 1)));
+        } catch (RuntimeException e) {
+            throw new BusinessException(ResultCode.BAD_REQUEST, "无效的分页游标");
+        }
+    }
+}
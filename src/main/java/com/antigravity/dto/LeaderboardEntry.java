@@ -0,0 +1,11 @@
+package com.antigravity.dto;
+
+/**
+ * 修为排行榜条目
+ */
+public record LeaderboardEntry(
+    int rank,
+    Long userId,
+    String nickname,
+    long totalExperience) {
+}
@@ -0,0 +1,10 @@
+package com.antigravity.dto;
+
+/**
+ * 当前用户的排名；尚未积累修为时 rank 为 null
+ */
+public record LeaderboardRank(
+    Integer rank,
+    long totalExperience,
+    int totalUsers) {
+}
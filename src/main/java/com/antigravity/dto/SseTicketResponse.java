@@ -0,0 +1,7 @@
+package com.antigravity.dto;
+
+/**
+ * Short-lived, single-use credential for GET /api/focus/events?ticket=...
+ */
+public record SseTicketResponse(String ticket, long expiresInSeconds) {
+}
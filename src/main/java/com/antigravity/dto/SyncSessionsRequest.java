@@ -0,0 +1,17 @@
+package com.antigravity.dto;
+
+import java.util.List;
+
+/**
+ * 离线同步请求：客户端断网期间在本地完成的专注记录，按列表顺序返回逐项结果
+ */
+public record SyncSessionsRequest(List<Session> sessions) {
+
+    /**
+     * clientSessionId 由客户端生成（如 UUID），同一用户下重复提交只会入库一次；
+     * startedAt / completedAt 为 ISO 格式，completedAt 缺省时取 startedAt + durationSeconds
+     */
+    public record Session(String clientSessionId, String taskName, Integer durationSeconds, String startedAt,
+                          String completedAt) {
+    }
+}
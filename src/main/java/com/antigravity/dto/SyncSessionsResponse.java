@@ -0,0 +1,24 @@
+package com.antigravity.dto;
+
+import java.util.List;
+
+/**
+ * 离线同步结果；experience 为本次新入库记录累加后的修为，没有新记录时为 null
+ */
+public record SyncSessionsResponse(List<Item> results, FocusResponse experience) {
+
+    public enum Status {
+        /** 本次新入库 */
+        INSERTED,
+        /** 此前已同步过（或在本次请求中重复出现），未重复计入修为 */
+        DUPLICATE,
+        /** 字段无效，未入库 */
+        REJECTED
+    }
+
+    /**
+     * 单项结果；index 为该项在请求列表中的下标，taskId 只在 INSERTED 时返回
+     */
+    public record Item(int index, String clientSessionId, Status status, Long taskId, String message) {
+    }
+}
@@ -1,14 +1,48 @@
 package com.antigravity.dto;
 
+import com.antigravity.entity.FocusTask;
+import com.antigravity.entity.TaskStatus;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 public record TaskListItem(
     Long id,
     String taskName,
     Integer durationSeconds,
-    String status,
+    TaskStatus status,
     LocalDateTime startedAt,
     LocalDateTime expectedEndAt,
     LocalDateTime completedAt,
     Long remainingSeconds) {
+
+    /**
+     * Maps a running task, counting down against {@code now}.
+     */
+    public static TaskListItem running(FocusTask task, LocalDateTime now) {
+        long remainingSeconds = 0;
+        if (task.getExpectedEndAt() != null) {
+            remainingSeconds = Math.max(0, Duration.between(now, task.getExpectedEndAt()).getSeconds());
+        }
+        return of(task, remainingSeconds);
+    }
+
+    /**
+     * Maps a finished task; there is nothing left to count down.
+     */
+    public static TaskListItem finished(FocusTask task) {
+        return of(task, 0L);
+    }
+
+    private static TaskListItem of(FocusTask task, long remainingSeconds) {
+        return new TaskListItem(
+            task.getId(),
+            task.getTaskName(),
+            task.getDurationSeconds(),
+            task.getStatus(),
+            task.getStartedAt(),
+            task.getExpectedEndAt(),
+            task.getCompletedAt(),
+            remainingSeconds);
+    }
 }
@@ -0,0 +1,93 @@
+package com.antigravity.entity;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Arrays;
+
+/**
+ * Cultivation rank, derived from total experience alone: 18 realms x 9 stages, encoded as 0..161.
+ * Rank {@code n} is reached at {@code EXPERIENCE_UNIT * n^2} experience. The thresholds are
+ * precomputed and searched with a binary search; display names are built once and interned.
+ * user_level.rank_code is a generated column using the closed form of the same curve,
+ * {@code LEAST(161, FLOOR(SQRT(total_experience DIV 300)))}, so the two always agree.
+ */
+public final class CultivationRank implements Comparable<CultivationRank> {
+
+  private static final String[] REALMS = {
+      "炼气期", "筑基期", "金丹期",
+      "元婴期", "化神期", "炼虚期",
+      "合体期", "大乘期", "渡劫期",
+      "人仙境", "真仙境", "玄仙境",
+      "金仙境", "太乙境", "大罗境",
+      "道祖境", "混元无极", "创世神"
+  };
+
+  public static final int STAGES_PER_REALM = 9;
+
+  /**
+   * Experience (focus seconds) scale of the rank curve; must match the rank_code column expression
+   */
+  public static final long EXPERIENCE_UNIT = 300;
+
+  private static final CultivationRank[] BY_CODE = new CultivationRank[REALMS.length * STAGES_PER_REALM];
+  private static final long[] THRESHOLDS = new long[BY_CODE.length];
+
+  static {
+    for (int code = 0; code < BY_CODE.length; code++) {
+      THRESHOLDS[code] = EXPERIENCE_UNIT * code * code;
+      String name = (REALMS[code / STAGES_PER_REALM] + " - " + (code % STAGES_PER_REALM + 1) + "层").intern();
+      BY_CODE[code] = new CultivationRank(code, name, THRESHOLDS[code]);
+    }
+  }
+
+  public static final CultivationRank INITIAL = BY_CODE[0];
+  public static final CultivationRank MAX = BY_CODE[BY_CODE.length - 1];
+
+  private final int code;
+  private final String displayName;
+  private final long minExperience;
+
+  private CultivationRank(int code, String displayName, long minExperience) {
+    this.code = code;
+    this.displayName = displayName;
+    this.minExperience = minExperience;
+  }
+
+  public static CultivationRank of(int code) {
+    if (code < 0 || code >= BY_CODE.length) {
+      throw new IllegalArgumentException("Unknown rank code: " + code);
+    }
+    return BY_CODE[code];
+  }
+
+  /**
+   * Highest rank whose threshold does not exceed {@code totalExperience}
+   */
+  public static CultivationRank forExperience(long totalExperience) {
+    int index = Arrays.binarySearch(THRESHOLDS, Math.max(0, totalExperience));
+    return BY_CODE[index >= 0 ? index : -index - 2];
+  }
+
+  public int code() {
+    return code;
+  }
+
+  @JsonValue
+  public String displayName() {
+    return displayName;
+  }
+
+  public long minExperience() {
+    return minExperience;
+  }
+
+  @Override
+  public int compareTo(CultivationRank other) {
+    return Integer.compare(code, other.code);
+  }
+
+  @Override
+  public String toString() {
+    return displayName;
+  }
+}
@@ -0,0 +1,15 @@
+package com.antigravity.entity;
+
+import lombok.Data;
+import java.time.LocalDate;
+
+/**
+ * 每用户每天的专注汇总
+ */
+@Data
+public class FocusDailyStats {
+  private Long userId;
+  private LocalDate statDate;
+  private Long focusSeconds;
+  private Integer taskCount;
+}
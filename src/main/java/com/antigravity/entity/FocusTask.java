@@ -9,8 +9,9 @@ public class FocusTask {
   private Long userId;
   private String taskName;
   private Integer durationSeconds;
-  private String status;
+  private TaskStatus status;
   private LocalDateTime startedAt;
   private LocalDateTime expectedEndAt;
   private LocalDateTime completedAt;
+  private String clientSessionId;
 }
@@ -0,0 +1,14 @@
+package com.antigravity.entity;
+
+import lombok.Data;
+
+/**
+ * 每用户每个任务名的专注汇总
+ */
+@Data
+public class FocusTaskNameStats {
+  private Long userId;
+  private String taskName;
+  private Long focusSeconds;
+  private Integer taskCount;
+}
@@ -1,7 +1,50 @@
 package com.antigravity.entity;
 
+/**
+ * Task lifecycle state, persisted as a TINYINT code through TaskStatusTypeHandler
+ */
 public enum TaskStatus {
-  RUNNING,
-  COMPLETED,
-  ABANDONED
+  RUNNING(Codes.RUNNING),
+  COMPLETED(Codes.COMPLETED),
+  ABANDONED(Codes.ABANDONED),
+  /**
+   * Still RUNNING well past its expected end, i.e. the client went away
+   */
+  EXPIRED(Codes.EXPIRED);
+
+  /**
+   * Column values as compile-time constants, so annotation SQL can embed them
+   */
+  public interface Codes {
+    int RUNNING = 1;
+    int COMPLETED = 2;
+    int ABANDONED = 3;
+    int EXPIRED = 4;
+  }
+
+  private static final TaskStatus[] BY_CODE = new TaskStatus[Codes.EXPIRED + 1];
+
+  static {
+    for (TaskStatus status : values()) {
+      BY_CODE[status.code] = status;
+    }
+  }
+
+  private final int code;
+
+  TaskStatus(int code) {
+    this.code = code;
+  }
+
+  public int code() {
+    return code;
+  }
+
+  public static TaskStatus of(int code) {
+    TaskStatus status = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    if (status == null) {
+      throw new IllegalArgumentException("Unknown task status code: " + code);
+    }
+    return status;
+  }
 }
@@ -7,5 +7,5 @@ public class UserLevel {
   private Long id;
   private Long userId;
   private Long totalExperience;
-  private String cultivationRank; // e.g. "Qi Refining", "Foundation Establishment"
+  private CultivationRank cultivationRank; // read from the generated rank_code column
 }
@@ -1,36 +1,202 @@
 package com.antigravity.mapper;
 
+import com.antigravity.datasource.ReplicaRead;
 import com.antigravity.entity.FocusTask;
+import com.antigravity.entity.TaskStatus;
+import com.antigravity.entity.TaskStatus.Codes;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
 public interface FocusMapper {
 
+  /**
+   * Column list shared by focus_task and focus_task_archive, so both tiers can be UNIONed
+   */
+  String TASK_COLUMNS = "id, user_id, task_name, duration_seconds, status, started_at, expected_end_at, completed_at, " +
+      "client_session_id";
+
+  String AFTER_CURSOR = "<if test='afterCompletedAt != null'>" +
+      " AND (completed_at &lt; #{afterCompletedAt} OR (completed_at = #{afterCompletedAt} AND id &lt; #{afterId}))" +
+      "</if>";
+
   @Insert("INSERT INTO focus_task (user_id, task_name, duration_seconds, status, started_at, expected_end_at, completed_at) " +
       "VALUES (#{userId}, #{taskName}, #{durationSeconds}, #{status}, #{startedAt}, #{expectedEndAt}, #{completedAt})")
   @Options(useGeneratedKeys = true, keyProperty = "id")
   void insertTask(FocusTask task);
 
-  @Select("SELECT * FROM focus_task WHERE user_id = #{userId} AND status = 'RUNNING' ORDER BY started_at DESC")
+  @ReplicaRead
+  @Select("SELECT * FROM focus_task WHERE user_id = #{userId} AND status = " + Codes.RUNNING + " ORDER BY started_at DESC")
   List<FocusTask> selectRunningTasksByUserId(Long userId);
 
-  @Select("SELECT * FROM focus_task WHERE user_id = #{userId} AND status = 'COMPLETED' ORDER BY completed_at DESC LIMIT #{limit}")
-  List<FocusTask> selectCompletedTasksByUserId(@Param("userId") Long userId, @Param("limit") int limit);
+  /**
+   * Keyset page of completed tasks, newest first, across the hot table and the archive tier.
+   * Pass the (completed_at, id) of the last row of the previous page, or nulls for the first page.
+   * Each arm is a bounded range scan on its (user_id, status, completed_at) index; a task lives in
+   * exactly one tier, and a single statement sees one snapshot, so an in-flight move never shows twice.
+   */
+  @ReplicaRead
+  @Select("<script>" +
+      "(SELECT " + TASK_COLUMNS + " FROM focus_task WHERE user_id = #{userId} AND status = " + Codes.COMPLETED +
+      AFTER_CURSOR +
+      " ORDER BY completed_at DESC, id DESC LIMIT #{limit})" +
+      " UNION ALL " +
+      "(SELECT " + TASK_COLUMNS + " FROM focus_task_archive WHERE user_id = #{userId} AND status = " + Codes.COMPLETED +
+      AFTER_CURSOR +
+      " ORDER BY completed_at DESC, id DESC LIMIT #{limit})" +
+      " ORDER BY completed_at DESC, id DESC LIMIT #{limit}" +
+      "</script>")
+  List<FocusTask> selectCompletedTasksPage(@Param("userId") Long userId,
+      @Param("afterCompletedAt") LocalDateTime afterCompletedAt,
+      @Param("afterId") Long afterId,
+      @Param("limit") int limit);
 
   @Update("UPDATE focus_task SET status = #{status}, completed_at = #{completedAt} WHERE id = #{id}")
-  void updateTaskStatus(@Param("id") Long id, @Param("status") String status,
+  void updateTaskStatus(@Param("id") Long id, @Param("status") TaskStatus status,
+      @Param("completedAt") LocalDateTime completedAt);
+
+  /**
+   * Completes a task only if it still belongs to the user and is RUNNING.
+   * Returns the affected row count, so 0 means another request got there first.
+   */
+  @Update("UPDATE focus_task SET status = " + Codes.COMPLETED + ", completed_at = #{completedAt} " +
+      "WHERE id = #{id} AND user_id = #{userId} AND status = " + Codes.RUNNING)
+  int completeRunningTask(@Param("id") Long id, @Param("userId") Long userId,
+      @Param("completedAt") LocalDateTime completedAt);
+
+  @Update("UPDATE focus_task SET status = " + Codes.ABANDONED + ", completed_at = #{completedAt} " +
+      "WHERE id = #{id} AND user_id = #{userId} AND status = " + Codes.RUNNING)
+  int abandonRunningTask(@Param("id") Long id, @Param("userId") Long userId,
       @Param("completedAt") LocalDateTime completedAt);
 
+  /**
+   * Moves overdue tasks to EXPIRED in one statement; tasks completed in the meantime are left alone.
+   */
+  @Update("<script>UPDATE focus_task SET status = " + Codes.EXPIRED + ", completed_at = #{expiredAt} " +
+      "WHERE status = " + Codes.RUNNING + " AND id IN " +
+      "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+  int expireRunningTasks(@Param("ids") Collection<Long> ids, @Param("expiredAt") LocalDateTime expiredAt);
+
+  /**
+   * Which of {@code ids} were expired at {@code expiredAt}, i.e. by the preceding expireRunningTasks call.
+   * expiredAt must already be truncated to the column's second precision.
+   */
+  @Select("<script>SELECT id FROM focus_task WHERE status = " + Codes.EXPIRED + " AND completed_at = #{expiredAt} " +
+      "AND id IN <foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+  List<Long> selectExpiredTaskIds(@Param("ids") Collection<Long> ids, @Param("expiredAt") LocalDateTime expiredAt);
+
+  @Select("SELECT id, user_id, expected_end_at FROM focus_task WHERE status = " + Codes.RUNNING)
+  List<FocusTask> selectRunningTaskDeadlines();
+
   @Select("SELECT * FROM focus_task WHERE id = #{id}")
   FocusTask selectTaskById(Long id);
 
+  @Select("<script>SELECT * FROM focus_task WHERE user_id = #{userId} AND id IN " +
+      "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+  List<FocusTask> selectTasksByIds(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+  /**
+   * Oldest finished tasks that completed before the cutoff; served by idx_focus_task_completed.
+   */
+  @Select("SELECT id FROM focus_task WHERE completed_at < #{before} AND status != " + Codes.RUNNING + " " +
+      "ORDER BY completed_at, id LIMIT #{limit}")
+  List<Long> selectArchivableTaskIds(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+  /**
+   * Plain INSERT on purpose: a row the archive rejects (duplicate key, conversion error) must fail
+   * the batch transaction rather than be skipped and then deleted from focus_task.
+   */
+  @Insert("<script>INSERT INTO focus_task_archive (" + TASK_COLUMNS + ") " +
+      "SELECT " + TASK_COLUMNS + " FROM focus_task WHERE status != " + Codes.RUNNING + " AND id IN " +
+      "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+  int copyTasksToArchive(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Deletes only rows that are already present in focus_task_archive.
+   */
+  @Delete("<script>DELETE f FROM focus_task f JOIN focus_task_archive a ON a.id = f.id " +
+      "WHERE f.status != " + Codes.RUNNING + " AND f.id IN " +
+      "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+  int deleteArchivedTasks(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Every task the user owns, in both tiers, streamed row by row (fetchSize MIN_VALUE makes
+   * Connector/J stream instead of buffering the whole result). Must be consumed inside an open session.
+   */
+  @ReplicaRead
+  @Select("SELECT " + TASK_COLUMNS + " FROM focus_task WHERE user_id = #{userId} " +
+      "UNION ALL " +
+      "SELECT " + TASK_COLUMNS + " FROM focus_task_archive WHERE user_id = #{userId}")
+  @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+  Cursor<FocusTask> streamTasksByUserId(@Param("userId") Long userId);
+
+  /**
+   * Idempotency keys among {@code keys} that the user has already synced, in either tier
+   */
+  @Select("<script>SELECT client_session_id FROM focus_task WHERE user_id = #{userId} AND client_session_id IN " +
+      "<foreach collection='keys' item='key' open='(' separator=',' close=')'>#{key}</foreach>" +
+      " UNION ALL " +
+      "SELECT client_session_id FROM focus_task_archive WHERE user_id = #{userId} AND client_session_id IN " +
+      "<foreach collection='keys' item='key' open='(' separator=',' close=')'>#{key}</foreach></script>")
+  List<String> selectSyncedSessionKeys(@Param("userId") Long userId, @Param("keys") Collection<String> keys);
+
+  /**
+   * One multi-row INSERT for a whole sync payload. A key that was synced concurrently violates
+   * uq_focus_task_user_client_session and fails the statement, so the caller can re-check and retry.
+   */
+  @Insert("<script>INSERT INTO focus_task (user_id, task_name, duration_seconds, status, started_at, " +
+      "expected_end_at, completed_at, client_session_id) VALUES " +
+      "<foreach collection='tasks' item='t' separator=','>" +
+      "(#{t.userId}, #{t.taskName}, #{t.durationSeconds}, #{t.status}, #{t.startedAt}, " +
+      "#{t.expectedEndAt}, #{t.completedAt}, #{t.clientSessionId})" +
+      "</foreach></script>")
+  @Options(useGeneratedKeys = true, keyProperty = "tasks.id", keyColumn = "id")
+  int insertTasks(@Param("tasks") List<FocusTask> tasks);
+
+  // Online migration of the VARCHAR status column to TINYINT, see TaskStatusMigration.
+  // ${table} is always focus_task or focus_task_archive, never user input.
+
+  @Select("SELECT COUNT(*) > 0 FROM information_schema.COLUMNS " +
+      "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = #{table} AND COLUMN_NAME = 'status_code'")
+  boolean hasPendingStatusMigration(@Param("table") String table);
+
+  @Select("SELECT IFNULL(MAX(id), 0) FROM ${table}")
+  long selectMaxTaskId(@Param("table") String table);
+
+  @Update("UPDATE ${table} SET status_code = CASE status " +
+      "WHEN 'COMPLETED' THEN " + Codes.COMPLETED + " " +
+      "WHEN 'ABANDONED' THEN " + Codes.ABANDONED + " " +
+      "WHEN 'EXPIRED' THEN " + Codes.EXPIRED + " " +
+      "ELSE " + Codes.RUNNING + " END " +
+      "WHERE id > #{afterId} AND id <= #{toId} AND status_code IS NULL")
+  int backfillStatusCodes(@Param("table") String table, @Param("afterId") long afterId, @Param("toId") long toId);
+
+  @Select("SELECT COUNT(*) FROM ${table} WHERE status_code IS NULL")
+  long countUnmigratedStatuses(@Param("table") String table);
+
+  /**
+   * Swaps the backfilled status_code in for the VARCHAR column and rebuilds the history index on it.
+   * InnoDB runs this in place and keeps the table open to concurrent DML.
+   */
+  @Update("ALTER TABLE ${table} " +
+      "DROP INDEX idx_${table}_user_status_completed, " +
+      "DROP COLUMN status, " +
+      "CHANGE COLUMN status_code status TINYINT UNSIGNED NOT NULL DEFAULT " + Codes.RUNNING + " COMMENT '任务状态', " +
+      "ADD INDEX idx_${table}_user_status_completed (user_id, status, completed_at)")
+  void finishStatusMigration(@Param("table") String table);
+
+  @Update("ALTER TABLE focus_task ADD INDEX idx_focus_task_user_status_started (user_id, status, started_at)")
+  void addRunningTaskIndex();
+
   // 保留旧的方法用于兼容性
-  @Select("SELECT * FROM focus_task WHERE status = 'RUNNING' ORDER BY started_at DESC")
+  @Select("SELECT * FROM focus_task WHERE status = " + Codes.RUNNING + " ORDER BY started_at DESC")
   List<FocusTask> selectRunningTasks();
 
-  @Select("SELECT * FROM focus_task WHERE status = 'COMPLETED' ORDER BY completed_at DESC LIMIT #{limit}")
+  @Select("SELECT * FROM focus_task WHERE status = " + Codes.COMPLETED + " ORDER BY completed_at DESC LIMIT #{limit}")
   List<FocusTask> selectCompletedTasks(int limit);
 }
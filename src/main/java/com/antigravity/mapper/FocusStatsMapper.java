@@ -0,0 +1,97 @@
+package com.antigravity.mapper;
+
+import com.antigravity.entity.FocusDailyStats;
+import com.antigravity.entity.FocusTaskNameStats;
+import com.antigravity.entity.TaskStatus;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 专注统计汇总表（focus_daily_stats / focus_task_name_stats）
+ */
+@Mapper
+public interface FocusStatsMapper {
+
+  @Insert("INSERT INTO focus_daily_stats (user_id, stat_date, focus_seconds, task_count) " +
+      "VALUES (#{userId}, #{statDate}, #{seconds}, #{count}) " +
+      "ON DUPLICATE KEY UPDATE focus_seconds = focus_seconds + VALUES(focus_seconds), " +
+      "task_count = task_count + VALUES(task_count)")
+  void addDaily(@Param("userId") Long userId, @Param("statDate") LocalDate statDate, @Param("seconds") long seconds,
+      @Param("count") int count);
+
+  @Insert("INSERT INTO focus_task_name_stats (user_id, task_name, focus_seconds, task_count) " +
+      "VALUES (#{userId}, #{taskName}, #{seconds}, #{count}) " +
+      "ON DUPLICATE KEY UPDATE focus_seconds = focus_seconds + VALUES(focus_seconds), " +
+      "task_count = task_count + VALUES(task_count)")
+  void addTaskName(@Param("userId") Long userId, @Param("taskName") String taskName, @Param("seconds") long seconds,
+      @Param("count") int count);
+
+  /**
+   * 主键范围扫描 [from, to]，按日期升序
+   */
+  @Select("SELECT * FROM focus_daily_stats WHERE user_id = #{userId} " +
+      "AND stat_date BETWEEN #{from} AND #{to} ORDER BY stat_date")
+  List<FocusDailyStats> selectDaily(@Param("userId") Long userId, @Param("from") LocalDate from,
+      @Param("to") LocalDate to);
+
+  @Select("SELECT * FROM focus_task_name_stats WHERE user_id = #{userId} " +
+      "ORDER BY focus_seconds DESC LIMIT #{limit}")
+  List<FocusTaskNameStats> selectTopTaskNames(@Param("userId") Long userId, @Param("limit") int limit);
+
+  /**
+   * 回填尚未完成时返回已回填到的用户 ID（从其后继续），已完成时返回 null
+   */
+  @Select("SELECT last_user_id FROM focus_stats_backfill WHERE id = 1 AND completed = FALSE")
+  Long selectPendingBackfillUserId();
+
+  /**
+   * 一段回填写入后记录进度
+   */
+  @Update("UPDATE focus_stats_backfill SET last_user_id = #{lastUserId} WHERE id = 1")
+  void saveBackfillProgress(@Param("lastUserId") long lastUserId);
+
+  /**
+   * 最后一段写入后标记回填完成
+   */
+  @Update("UPDATE focus_stats_backfill SET completed = TRUE WHERE id = 1")
+  void markBackfillCompleted();
+
+  /**
+   * 强制重算：从头开始
+   */
+  @Update("UPDATE focus_stats_backfill SET last_user_id = 0, completed = FALSE WHERE id = 1")
+  void resetBackfill();
+
+  /**
+   * 回填时按用户 ID 分段
+   */
+  @Select("SELECT id FROM user WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+  List<Long> selectUserIdsAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+  /**
+   * 两个存储层中 [fromUserId, toUserId] 内用户已完成的任务
+   */
+  String COMPLETED_TASKS_IN_RANGE = "(SELECT user_id, task_name, duration_seconds, completed_at FROM focus_task " +
+      "WHERE user_id BETWEEN #{fromUserId} AND #{toUserId} AND status = " + TaskStatus.Codes.COMPLETED + " " +
+      "UNION ALL " +
+      "SELECT user_id, task_name, duration_seconds, completed_at FROM focus_task_archive " +
+      "WHERE user_id BETWEEN #{fromUserId} AND #{toUserId} AND status = " + TaskStatus.Codes.COMPLETED + ") t ";
+
+  /**
+   * 用 focus_task 与归档表重算 [fromUserId, toUserId] 内用户的每日汇总；覆盖写入，重复执行结果相同
+   */
+  @Insert("INSERT INTO focus_daily_stats (user_id, stat_date, focus_seconds, task_count) " +
+      "SELECT user_id, DATE(completed_at), SUM(duration_seconds), COUNT(*) FROM " + COMPLETED_TASKS_IN_RANGE +
+      "WHERE completed_at IS NOT NULL " +
+      "GROUP BY user_id, DATE(completed_at) " +
+      "ON DUPLICATE KEY UPDATE focus_seconds = VALUES(focus_seconds), task_count = VALUES(task_count)")
+  int rebuildDaily(@Param("fromUserId") long fromUserId, @Param("toUserId") long toUserId);
+
+  @Insert("INSERT INTO focus_task_name_stats (user_id, task_name, focus_seconds, task_count) " +
+      "SELECT user_id, IFNULL(task_name, ''), SUM(duration_seconds), COUNT(*) FROM " + COMPLETED_TASKS_IN_RANGE +
+      "GROUP BY user_id, IFNULL(task_name, '') " +
+      "ON DUPLICATE KEY UPDATE focus_seconds = VALUES(focus_seconds), task_count = VALUES(task_count)")
+  int rebuildTaskNames(@Param("fromUserId") long fromUserId, @Param("toUserId") long toUserId);
+}
@@ -0,0 +1,33 @@
+package com.antigravity.mapper;
+
+import org.apache.ibatis.annotations.*;
+
+import java.util.Collection;
+
+/**
+ * 任务列表版本号（focus_task_version）
+ */
+@Mapper
+public interface TaskListVersionMapper {
+
+  /**
+   * Current version, 0 for a user whose tasks have never changed. Always read from the primary.
+   */
+  @Select("SELECT IFNULL(MAX(version), 0) FROM focus_task_version WHERE user_id = #{userId}")
+  long selectVersion(@Param("userId") Long userId);
+
+  /**
+   * Must run in the same transaction as the task write it stands for.
+   */
+  @Insert("INSERT INTO focus_task_version (user_id, version) VALUES (#{userId}, 1) " +
+      "ON DUPLICATE KEY UPDATE version = version + 1")
+  void bump(@Param("userId") Long userId);
+
+  /**
+   * Bumps several users in one statement; pass the ids sorted so concurrent callers lock rows in the same order.
+   */
+  @Insert("<script>INSERT INTO focus_task_version (user_id, version) VALUES " +
+      "<foreach collection='userIds' item='userId' separator=','>(#{userId}, 1)</foreach>" +
+      " ON DUPLICATE KEY UPDATE version = version + 1</script>")
+  void bumpAll(@Param("userIds") Collection<Long> userIds);
+}
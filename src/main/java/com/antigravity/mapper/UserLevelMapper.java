@@ -2,25 +2,44 @@ package com.antigravity.mapper;
 
 import com.antigravity.entity.UserLevel;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.util.Optional;
 
 @Mapper
 public interface UserLevelMapper {
 
-  @Select("SELECT * FROM user_level WHERE user_id = #{userId}")
+  /**
+   * rank_code is generated from total_experience by MySQL and mapped by CultivationRankTypeHandler
+   */
+  String LEVEL_COLUMNS = "id, user_id, total_experience, rank_code AS cultivation_rank";
+
+  @Select("SELECT " + LEVEL_COLUMNS + " FROM user_level WHERE user_id = #{userId}")
   Optional<UserLevel> getUserLevelByUserId(Long userId);
 
-  @Insert("INSERT INTO user_level (user_id, total_experience, cultivation_rank) " +
-          "VALUES (#{userId}, #{totalExperience}, #{cultivationRank})")
+  @Insert("INSERT INTO user_level (user_id, total_experience) VALUES (#{userId}, #{totalExperience})")
   @Options(useGeneratedKeys = true, keyProperty = "id")
   void insertUserLevel(UserLevel userLevel);
 
-  @Update("UPDATE user_level SET total_experience = #{totalExperience}, " +
-          "cultivation_rank = #{cultivationRank} WHERE user_id = #{userId}")
+  @Update("UPDATE user_level SET total_experience = #{totalExperience} WHERE user_id = #{userId}")
   void updateUserLevel(UserLevel userLevel);
 
+  /**
+   * 在数据库内原子累加修为，首次完成时自动建行；境界由生成列 rank_code 随之更新
+   */
+  @Insert("INSERT INTO user_level (user_id, total_experience) VALUES (#{userId}, #{delta}) " +
+          "ON DUPLICATE KEY UPDATE total_experience = total_experience + VALUES(total_experience)")
+  void addExperience(@Param("userId") Long userId, @Param("delta") long delta);
+
+  /**
+   * 逐行流式读取全部用户修为（用于启动时构建排行榜），不在内存中整体物化结果集
+   */
+  @Select("SELECT user_id, total_experience FROM user_level WHERE user_id IS NOT NULL")
+  @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+  void scanExperience(ResultHandler<UserLevel> handler);
+
   // 保留旧的方法用于兼容性
-  @Select("SELECT * FROM user_level WHERE id = 1")
+  @Select("SELECT " + LEVEL_COLUMNS + " FROM user_level WHERE id = 1")
   UserLevel getUserLevel();
 }
@@ -1,8 +1,14 @@
 package com.antigravity.mapper;
 
+import com.antigravity.datasource.ReplicaRead;
 import com.antigravity.entity.User;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -17,6 +23,14 @@ public interface UserMapper {
     @Select("SELECT * FROM user WHERE id = #{id}")
     Optional<User> findById(Long id);
 
+    /**
+     * 批量查询昵称（只返回 id、username、nickname）
+     */
+    @Select("<script>SELECT id, username, nickname FROM user WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<User> findNicknamesByIds(@Param("ids") Collection<Long> ids);
+
     @Insert("INSERT INTO user (username, password, nickname, is_guest) " +
             "VALUES (#{username}, #{password}, #{nickname}, #{isGuest})")
     @Options(useGeneratedKeys = true, keyProperty = "id")
@@ -26,6 +40,49 @@ public interface UserMapper {
             "WHERE id = #{id}")
     void update(User user);
 
+    @ReplicaRead
     @Select("SELECT COUNT(*) FROM user WHERE username = #{username}")
     boolean existsByUsername(String username);
+
+    /**
+     * 逐行流式读取全部用户名（用于启动时构建用户名过滤器）
+     */
+    @Select("SELECT username FROM user")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    void scanUsernames(ResultHandler<String> handler);
+
+    /**
+     * 按 id 游标取一段闲置游客：创建于 idleBefore 之前，且此后没有开始或结束过任务。
+     * 走 idx_user_guest (is_guest, id) 范围扫描，任务判断走 focus_task 的 user_id 前缀索引。
+     */
+    @Select("SELECT u.id FROM user u WHERE u.is_guest = TRUE AND u.id > #{afterId} " +
+            "AND u.created_at < #{idleBefore} " +
+            "AND NOT EXISTS (SELECT 1 FROM focus_task t WHERE t.user_id = u.id " +
+            "AND (t.started_at >= #{idleBefore} OR t.completed_at >= #{idleBefore})) " +
+            "AND NOT EXISTS (SELECT 1 FROM focus_task_archive a WHERE a.user_id = u.id " +
+            "AND a.completed_at >= #{idleBefore}) " +
+            "ORDER BY u.id LIMIT #{limit}")
+    List<Long> selectIdleGuestIds(@Param("afterId") long afterId, @Param("idleBefore") LocalDateTime idleBefore,
+                                  @Param("limit") int limit);
+
+    @Select("<script>SELECT " +
+            "(SELECT COUNT(*) FROM focus_task WHERE user_id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>) + " +
+            "(SELECT COUNT(*) FROM focus_task_archive WHERE user_id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>)" +
+            "</script>")
+    long countTasksByUserIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 删除一段闲置游客，focus_task / user_level / 统计汇总随外键级联删除。
+     * 删除时再次校验闲置条件，挑选之后恰好有新活动的游客会被跳过。
+     */
+    @Delete("<script>DELETE FROM user WHERE is_guest = TRUE AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            " AND NOT EXISTS (SELECT 1 FROM focus_task t WHERE t.user_id = user.id " +
+            "AND (t.started_at &gt;= #{idleBefore} OR t.completed_at &gt;= #{idleBefore}))" +
+            " AND NOT EXISTS (SELECT 1 FROM focus_task_archive a WHERE a.user_id = user.id " +
+            "AND a.completed_at &gt;= #{idleBefore})" +
+            "</script>")
+    int deleteIdleGuests(@Param("ids") Collection<Long> ids, @Param("idleBefore") LocalDateTime idleBefore);
 }
@@ -0,0 +1,45 @@
+package com.antigravity.mapper.type;
+
+import com.antigravity.entity.CultivationRank;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.MappedJdbcTypes;
+import org.apache.ibatis.type.MappedTypes;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps user_level.rank_code (TINYINT UNSIGNED) to the shared {@link CultivationRank} instances
+ */
+@MappedTypes(CultivationRank.class)
+@MappedJdbcTypes(value = JdbcType.TINYINT, includeNullJdbcType = true)
+public class CultivationRankTypeHandler extends BaseTypeHandler<CultivationRank> {
+
+  @Override
+  public void setNonNullParameter(PreparedStatement ps, int i, CultivationRank parameter, JdbcType jdbcType)
+      throws SQLException {
+    ps.setInt(i, parameter.code());
+  }
+
+  @Override
+  public CultivationRank getNullableResult(ResultSet rs, String columnName) throws SQLException {
+    return toRank(rs.getInt(columnName), rs.wasNull());
+  }
+
+  @Override
+  public CultivationRank getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+    return toRank(rs.getInt(columnIndex), rs.wasNull());
+  }
+
+  @Override
+  public CultivationRank getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+    return toRank(cs.getInt(columnIndex), cs.wasNull());
+  }
+
+  private static CultivationRank toRank(int code, boolean wasNull) {
+    return wasNull ? null : CultivationRank.of(code);
+  }
+}
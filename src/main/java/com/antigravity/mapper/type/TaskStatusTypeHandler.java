@@ -0,0 +1,45 @@
+package com.antigravity.mapper.type;
+
+import com.antigravity.entity.TaskStatus;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.MappedJdbcTypes;
+import org.apache.ibatis.type.MappedTypes;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps focus_task.status (TINYINT UNSIGNED) to {@link TaskStatus}
+ */
+@MappedTypes(TaskStatus.class)
+@MappedJdbcTypes(value = JdbcType.TINYINT, includeNullJdbcType = true)
+public class TaskStatusTypeHandler extends BaseTypeHandler<TaskStatus> {
+
+  @Override
+  public void setNonNullParameter(PreparedStatement ps, int i, TaskStatus parameter, JdbcType jdbcType)
+      throws SQLException {
+    ps.setInt(i, parameter.code());
+  }
+
+  @Override
+  public TaskStatus getNullableResult(ResultSet rs, String columnName) throws SQLException {
+    return toStatus(rs.getInt(columnName), rs.wasNull());
+  }
+
+  @Override
+  public TaskStatus getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+    return toStatus(rs.getInt(columnIndex), rs.wasNull());
+  }
+
+  @Override
+  public TaskStatus getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+    return toStatus(cs.getInt(columnIndex), cs.wasNull());
+  }
+
+  private static TaskStatus toStatus(int code, boolean wasNull) {
+    return wasNull ? null : TaskStatus.of(code);
+  }
+}
@@ -0,0 +1,150 @@
+package com.antigravity.metrics;
+
+import com.antigravity.cache.UserLookupCache;
+import com.antigravity.service.ExperienceWriteBehindBuffer;
+import com.antigravity.service.FocusEventHub;
+import com.antigravity.service.GuestReaper;
+import com.antigravity.service.LeaderboardService;
+import com.antigravity.service.PasswordHasher;
+import com.antigravity.service.TaskArchiver;
+import com.antigravity.service.TaskExpiryWheel;
+import com.antigravity.service.UsernameFilter;
+import com.antigravity.util.JwtUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 应用内部组件的指标：JWT 验签缓存、用户/修为缓存、密码哈希队列、用户名过滤器、SSE 连接数、排行榜规模、超时时间轮、修为写后缓冲的积压量、游客清理量和任务归档量
+ */
+@Component
+public class ApplicationMetricsBinder implements MeterBinder {
+
+    private final JwtUtil jwtUtil;
+    private final UserLookupCache userLookupCache;
+    private final PasswordHasher passwordHasher;
+    private final UsernameFilter usernameFilter;
+    private final FocusEventHub focusEventHub;
+    private final LeaderboardService leaderboardService;
+    private final ObjectProvider<TaskExpiryWheel> expiryWheel;
+    private final ObjectProvider<ExperienceWriteBehindBuffer> writeBehindBuffer;
+    private final ObjectProvider<GuestReaper> guestReaper;
+    private final ObjectProvider<TaskArchiver> taskArchiver;
+
+    public ApplicationMetricsBinder(JwtUtil jwtUtil, UserLookupCache userLookupCache, PasswordHasher passwordHasher, UsernameFilter usernameFilter,
+                                    FocusEventHub focusEventHub,
+                                    LeaderboardService leaderboardService,
+                                    ObjectProvider<TaskExpiryWheel> expiryWheel,
+                                    ObjectProvider<ExperienceWriteBehindBuffer> writeBehindBuffer,
+                                    ObjectProvider<GuestReaper> guestReaper,
+                                    ObjectProvider<TaskArchiver> taskArchiver) {
+        this.jwtUtil = jwtUtil;
+        this.userLookupCache = userLookupCache;
+        this.passwordHasher = passwordHasher;
+        this.usernameFilter = usernameFilter;
+        this.focusEventHub = focusEventHub;
+        this.leaderboardService = leaderboardService;
+        this.expiryWheel = expiryWheel;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.guestReaper = guestReaper;
+        this.taskArchiver = taskArchiver;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("jwt.token.cache.requests", jwtUtil, util -> util.getTokenCacheStats().hitCount())
+                .description("Verified-token cache lookups")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("jwt.token.cache.requests", jwtUtil, util -> util.getTokenCacheStats().missCount())
+                .description("Verified-token cache lookups")
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("jwt.token.cache.size", jwtUtil, JwtUtil::getTokenCacheSize)
+                .description("Verified tokens currently cached")
+                .register(registry);
+
+        bindLookupCache(registry, "user_level", userLookupCache,
+                cache -> cache.getUserLevelStats().hitCount(), cache -> cache.getUserLevelStats().missCount(),
+                UserLookupCache::getUserLevelSize);
+        bindLookupCache(registry, "user", userLookupCache,
+                cache -> cache.getUserStats().hitCount(), cache -> cache.getUserStats().missCount(),
+                UserLookupCache::getUserSize);
+
+        Gauge.builder("auth.password.hash.queue", passwordHasher, PasswordHasher::getQueueDepth)
+                .description("Password hash requests waiting for a hashing thread")
+                .register(registry);
+
+        FunctionCounter.builder("auth.username.filter.lookups", usernameFilter, UsernameFilter::getAbsentLookups)
+                .description("Username existence checks, by whether the database was consulted")
+                .tag("result", "absent")
+                .register(registry);
+        FunctionCounter.builder("auth.username.filter.lookups", usernameFilter, UsernameFilter::getDatabaseLookups)
+                .description("Username existence checks, by whether the database was consulted")
+                .tag("result", "maybe")
+                .register(registry);
+        Gauge.builder("auth.username.filter.size.bytes", usernameFilter, UsernameFilter::getByteSize)
+                .description("Memory used by the username Bloom filter bit array")
+                .register(registry);
+        Gauge.builder("auth.username.filter.false_positive_rate", usernameFilter,
+                        UsernameFilter::getExpectedFalsePositiveRate)
+                .description("Expected false-positive rate at the current fill")
+                .register(registry);
+
+        Gauge.builder("focus.events.connections", focusEventHub, FocusEventHub::connectionCount)
+                .description("Open Server-Sent Events connections")
+                .register(registry);
+
+        Gauge.builder("focus.leaderboard.size", leaderboardService, LeaderboardService::size)
+                .description("Users ranked on the in-memory leaderboard")
+                .register(registry);
+
+        expiryWheel.ifAvailable(wheel -> Gauge.builder("focus.expiry.wheel.size", wheel, TaskExpiryWheel::size)
+                .description("Running tasks tracked by the expiry timer wheel")
+                .register(registry));
+
+        writeBehindBuffer.ifAvailable(buffer -> Gauge.builder("focus.experience.write_behind.pending", buffer,
+                        ExperienceWriteBehindBuffer::pendingCount)
+                .description("Users with experience deltas not yet flushed")
+                .register(registry));
+
+        guestReaper.ifAvailable(reaper -> {
+            FunctionCounter.builder("focus.guest.reaper.deleted", reaper, GuestReaper::getDeletedUsers)
+                    .description("Rows removed by the idle guest reaper")
+                    .tag("table", "user")
+                    .register(registry);
+            FunctionCounter.builder("focus.guest.reaper.deleted", reaper, GuestReaper::getDeletedTasks)
+                    .description("Rows removed by the idle guest reaper")
+                    .tag("table", "focus_task")
+                    .register(registry);
+        });
+
+        taskArchiver.ifAvailable(archiver -> FunctionCounter.builder("focus.archive.moved", archiver,
+                        TaskArchiver::getArchivedTasks)
+                .description("Finished tasks moved from focus_task to focus_task_archive")
+                .register(registry));
+    }
+
+    private static void bindLookupCache(MeterRegistry registry, String name, UserLookupCache cache,
+                                        ToDoubleFunction<UserLookupCache> hits,
+                                        ToDoubleFunction<UserLookupCache> misses,
+                                        ToDoubleFunction<UserLookupCache> size) {
+        FunctionCounter.builder("lookup.cache.requests", cache, hits)
+                .description("Read-through cache lookups")
+                .tags("cache", name, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("lookup.cache.requests", cache, misses)
+                .description("Read-through cache lookups")
+                .tags("cache", name, "result", "miss")
+                .register(registry);
+        Gauge.builder("lookup.cache.size", cache, size)
+                .description("Entries currently cached")
+                .tag("cache", name)
+                .register(registry);
+    }
+}
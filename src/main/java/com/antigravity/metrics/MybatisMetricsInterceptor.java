@@ -0,0 +1,109 @@
+package com.antigravity.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MyBatis 语句级指标
+ * 按 Mapper 语句 id（如 FocusMapper.selectRunningTasksByUserId）记录执行耗时 mybatis.statement
+ * 和返回/影响行数 mybatis.statement.rows，由 mybatis-spring-boot 自动注册为插件。
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class,
+                        CacheKey.class, BoundSql.class})
+})
+public class MybatisMetricsInterceptor implements Interceptor {
+
+    private final MeterRegistry registry;
+    private final ConcurrentHashMap<String, StatementMeters> meters = new ConcurrentHashMap<>();
+
+    public MybatisMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        StatementMeters statementMeters = meters.computeIfAbsent(statement.getId(), id -> new StatementMeters(statement));
+
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = invocation.proceed();
+            success = true;
+            recordRows(statementMeters, result);
+            return result;
+        } finally {
+            Timer timer = success ? statementMeters.success : statementMeters.error;
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static void recordRows(StatementMeters statementMeters, Object result) {
+        if (result instanceof List<?> rows) {
+            statementMeters.rows.record(rows.size());
+        } else if (result instanceof Integer affected && affected >= 0) {
+            // BATCH 执行器在 flush 前返回负数占位值，不计入
+            statementMeters.rows.record(affected);
+        }
+    }
+
+    private final class StatementMeters {
+
+        final Timer success;
+        final Timer error;
+        final DistributionSummary rows;
+
+        StatementMeters(MappedStatement statement) {
+            String name = shortName(statement.getId());
+            String type = statement.getSqlCommandType().name();
+            this.success = timer(name, type, "success");
+            this.error = timer(name, type, "error");
+            this.rows = DistributionSummary.builder("mybatis.statement.rows")
+                    .description("Rows returned or affected per mapped statement")
+                    .tag("statement", name)
+                    .tag("type", type)
+                    .register(registry);
+        }
+
+        private Timer timer(String name, String type, String outcome) {
+            return Timer.builder("mybatis.statement")
+                    .description("Execution time per mapped statement")
+                    .tag("statement", name)
+                    .tag("type", type)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * com.antigravity.mapper.FocusMapper.insertTask → FocusMapper.insertTask
+     */
+    private static String shortName(String statementId) {
+        int method = statementId.lastIndexOf('.');
+        int type = method > 0 ? statementId.lastIndexOf('.', method - 1) : -1;
+        return statementId.substring(type + 1);
+    }
+}
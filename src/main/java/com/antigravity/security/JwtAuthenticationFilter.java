@@ -6,58 +6,73 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Collections;
 
 /**
  * JWT 认证过滤器
  */
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String EVENTS_PATH = "/api/focus/events";
+
     private final JwtUtil jwtUtil;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
-        // 获取 Authorization header
-        String authHeader = request.getHeader("Authorization");
-        System.out.println("JWT Filter - Path: " + request.getRequestURI() + ", Auth Header: " + (authHeader != null ? "Present" : "Missing"));
-
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
+        String token = resolveToken(request);
+        String ticket = token == null ? resolveSseTicket(request) : null;
 
+        if (token != null || ticket != null) {
             try {
-                // 验证 token
-                if (jwtUtil.validateToken(token)) {
-                    String username = jwtUtil.getUsernameFromToken(token);
-                    System.out.println("JWT Filter - Token valid, username: " + username);
-
-                    // 创建认证对象
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(username, null, new ArrayList<>());
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                    // 设置到 SecurityContext
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                    System.out.println("JWT Filter - Authentication set successfully");
-                } else {
-                    System.out.println("JWT Filter - Token validation failed");
-                }
+                // 验签与过期校验只做一次，结果作为认证主体供 SecurityUtils 直接读取
+                JwtPrincipal principal = token != null ? jwtUtil.parseToken(token) : jwtUtil.redeemSseTicket(ticket);
+
+                // 创建认证对象
+                UsernamePasswordAuthenticationToken authentication =
+                        UsernamePasswordAuthenticationToken.authenticated(principal, null, Collections.emptyList());
+
+                // 设置到 SecurityContext
+                SecurityContextHolder.getContext().setAuthentication(authentication);
             } catch (Exception e) {
                 // Token 无效，继续过滤链
-                System.out.println("JWT Filter - Exception: " + e.getMessage());
+                log.debug("JWT 校验失败: path={}, {}", request.getRequestURI(), e.getMessage());
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * 从 Authorization header 获取 Token；登录 Token 只接受请求头，不接受查询参数
+     */
+    private String resolveToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        return null;
+    }
+
+    /**
+     * 浏览器的 EventSource 无法设置请求头：事件流接口改用 ticket 查询参数携带
+     * POST /api/focus/events/ticket 换来的短期一次性票据
+     */
+    private String resolveSseTicket(HttpServletRequest request) {
+        if (EVENTS_PATH.equals(request.getRequestURI())) {
+            return request.getParameter("ticket");
+        }
+        return null;
+    }
 }
@@ -0,0 +1,15 @@
+package com.antigravity.security;
+
+import java.security.Principal;
+
+/**
+ * JWT 认证主体
+ * 由 JwtAuthenticationFilter 在验签后放入 SecurityContext，后续直接读取，不再重复解析 Token。
+ */
+public record JwtPrincipal(Long userId, String username, boolean isGuest) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
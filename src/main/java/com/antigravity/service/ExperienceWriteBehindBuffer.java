@@ -0,0 +1,202 @@
+package com.antigravity.service;
+
+import com.antigravity.cache.UserLookupCache;
+import com.antigravity.entity.CultivationRank;
+import com.antigravity.entity.UserLevel;
+import com.antigravity.mapper.UserLevelMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 修为写后缓冲（可选，focus.experience.write-behind.enabled=true 时启用）
+ * 按用户在内存中合并修为增量，定时或积压到阈值时用 JDBC 批量 upsert 落库，关闭时全部刷出。
+ * 读取经过 getUserLevel，会叠加尚未落库的增量，保证返回给前端的累计值正确。
+ * 代价是进程崩溃时会丢失最近一个刷新周期内的增量。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "focus.experience.write-behind", name = "enabled", havingValue = "true")
+public class ExperienceWriteBehindBuffer {
+
+    /**
+     * 某个用户尚未落库的修为增量；境界由总修为推导，不随增量缓冲
+     */
+    record PendingExperience(long delta) {
+
+        PendingExperience merge(PendingExperience newer) {
+            return new PendingExperience(delta + newer.delta);
+        }
+    }
+
+    private final UserLookupCache userLookupCache;
+    private final SqlSessionTemplate batchSqlSession;
+    private final PlatformTransactionManager transactionManager;
+    private final Executor taskExecutor;
+    private final int maxPending;
+
+    /**
+     * 读锁：追加增量、读取叠加值；写锁：交换缓冲区、提交批量事务。
+     * 提交与清空 inFlight 在同一把写锁内完成，读者要么看到提交前的库值 + inFlight，要么看到提交后的库值。
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private volatile Map<Long, PendingExperience> pending = new ConcurrentHashMap<>();
+    private volatile Map<Long, PendingExperience> inFlight = Map.of();
+
+    public ExperienceWriteBehindBuffer(UserLookupCache userLookupCache,
+                                       SqlSessionFactory sqlSessionFactory,
+                                       PlatformTransactionManager transactionManager,
+                                       @Qualifier("taskExecutor") Executor taskExecutor,
+                                       @Value("${focus.experience.write-behind.max-pending:1000}") int maxPending) {
+        this.userLookupCache = userLookupCache;
+        this.batchSqlSession = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+        this.transactionManager = transactionManager;
+        this.taskExecutor = taskExecutor;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * 追加一笔修为增量，积压用户数达到阈值时异步触发一次刷新
+     */
+    public void add(Long userId, long delta) {
+        int size;
+        lock.readLock().lock();
+        try {
+            pending.merge(userId, new PendingExperience(delta), PendingExperience::merge);
+            size = pending.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (size >= maxPending && flushRequested.compareAndSet(false, true)) {
+            taskExecutor.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * 读取用户修为（库值叠加未落库增量）
+     * 调用方若处于事务中，需使用 READ COMMITTED，否则事务快照可能早于刷新提交。
+     */
+    public Optional<UserLevel> getUserLevel(Long userId) {
+        lock.readLock().lock();
+        try {
+            Optional<UserLevel> stored = userLookupCache.getUserLevel(userId);
+            PendingExperience unflushed = combine(inFlight.get(userId), pending.get(userId));
+            if (unflushed == null) {
+                return stored;
+            }
+
+            UserLevel level = stored.orElseGet(() -> FocusService.initialLevel(userId));
+            level.setTotalExperience(level.getTotalExperience() + unflushed.delta());
+            level.setCultivationRank(CultivationRank.forExperience(level.getTotalExperience()));
+            return Optional.of(level);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 尚未落库的用户数（不含正在刷新的批次）
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${focus.experience.write-behind.flush-interval-ms:500}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        log.info("修为写后缓冲已在关闭前刷出");
+    }
+
+    /**
+     * 将当前积压的增量批量写入 user_level，失败时放回缓冲区等待下次重试
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, PendingExperience> batch;
+            lock.writeLock().lock();
+            try {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                inFlight = batch;
+                pending = new ConcurrentHashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            TransactionStatus tx = transactionManager.getTransaction(new DefaultTransactionDefinition());
+            try {
+                UserLevelMapper batchMapper = batchSqlSession.getMapper(UserLevelMapper.class);
+                batch.forEach((userId, p) -> batchMapper.addExperience(userId, p.delta()));
+                batchSqlSession.flushStatements();
+            } catch (RuntimeException e) {
+                transactionManager.rollback(tx);
+                restore(batch, e);
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                transactionManager.commit(tx);
+                inFlight = Map.of();
+                log.debug("修为写后缓冲刷新完成: {} 个用户", batch.size());
+            } catch (RuntimeException e) {
+                restore(batch, e);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void restore(Map<Long, PendingExperience> batch, RuntimeException cause) {
+        log.error("修为写后缓冲刷新失败，{} 个用户的增量将在下次重试", batch.size(), cause);
+        lock.writeLock().lock();
+        try {
+            batch.forEach((userId, p) -> pending.merge(userId, p, (newer, older) -> older.merge(newer)));
+            inFlight = Map.of();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static PendingExperience combine(PendingExperience older, PendingExperience newer) {
+        if (older == null) {
+            return newer;
+        }
+        return newer == null ? older : older.merge(newer);
+    }
+}
@@ -0,0 +1,282 @@
+package com.antigravity.service;
+
+import com.antigravity.common.ResultCode;
+import com.antigravity.dto.BatchFocusRequest;
+import com.antigravity.dto.BatchFocusResponse;
+import com.antigravity.dto.FocusResponse;
+import com.antigravity.dto.StartFocusRequest;
+import com.antigravity.entity.FocusTask;
+import com.antigravity.entity.TaskStatus;
+import com.antigravity.entity.UserLevel;
+import com.antigravity.exception.BusinessException;
+import com.antigravity.mapper.FocusMapper;
+import com.antigravity.mapper.FocusStatsMapper;
+import com.antigravity.mapper.TaskListVersionMapper;
+import com.antigravity.mapper.UserLevelMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 批量开始 / 完成 / 放弃
+ * 整批在一个事务内通过 ExecutorType.BATCH 会话执行：一次查询读出涉及的任务，
+ * 任务状态变更一次 flush，统计汇总与修为累加再一次 flush，逐项结果按请求顺序返回。
+ * 语义与单个接口一致：条件更新未命中的项失败，不影响同批其他项。
+ */
+@Slf4j
+@Service
+public class FocusBatchService {
+
+    private final SqlSessionTemplate batchSqlSession;
+    private final TransactionTemplate transactionTemplate;
+    private final FocusService focusService;
+    private final LeaderboardService leaderboardService;
+    private final ExperienceWriteBehindBuffer writeBehindBuffer;
+    private final TaskExpiryWheel expiryWheel;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxOperations;
+
+    /**
+     * 一批操作的中间状态；index 为请求列表下标
+     */
+    private record Pending(int index, BatchFocusRequest.Type op, FocusTask task) {
+    }
+
+    /**
+     * 事务提交后需要处理的结果
+     */
+    private record Outcome(List<FocusTask> started, List<FocusTask> completed, List<Long> abandoned,
+                           long expGain) {
+    }
+
+    public FocusBatchService(SqlSessionFactory sqlSessionFactory,
+                             PlatformTransactionManager transactionManager,
+                             FocusService focusService,
+                             LeaderboardService leaderboardService,
+                             ObjectProvider<ExperienceWriteBehindBuffer> writeBehindBuffer,
+                             ObjectProvider<TaskExpiryWheel> expiryWheel,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${focus.batch.max-operations:100}") int maxOperations) {
+        this.batchSqlSession = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.focusService = focusService;
+        this.leaderboardService = leaderboardService;
+        this.writeBehindBuffer = writeBehindBuffer.getIfAvailable();
+        this.expiryWheel = expiryWheel.getIfAvailable();
+        this.eventPublisher = eventPublisher;
+        this.maxOperations = maxOperations;
+    }
+
+    public BatchFocusResponse execute(Long userId, BatchFocusRequest request) {
+        List<BatchFocusRequest.Operation> operations = request != null ? request.operations() : null;
+        if (operations == null || operations.isEmpty()) {
+            throw new BusinessException(ResultCode.BAD_REQUEST, "批量操作不能为空");
+        }
+        if (operations.size() > maxOperations) {
+            throw new BusinessException(ResultCode.BAD_REQUEST, "单次批量操作不能超过 " + maxOperations + " 项");
+        }
+
+        BatchFocusResponse.Item[] results = new BatchFocusResponse.Item[operations.size()];
+        Outcome outcome = transactionTemplate.execute(status -> executeInTransaction(userId, operations, results));
+
+        // 以下均在提交之后：写后缓冲、时间轮、排行榜只应看到已提交的结果
+        if (writeBehindBuffer != null && !outcome.completed().isEmpty()) {
+            writeBehindBuffer.add(userId, outcome.expGain());
+        }
+        if (expiryWheel != null) {
+            outcome.started().forEach(expiryWheel::schedule);
+            outcome.completed().forEach(task -> expiryWheel.cancel(task.getId()));
+            outcome.abandoned().forEach(expiryWheel::cancel);
+        }
+
+        FocusResponse experience = null;
+        if (!outcome.completed().isEmpty()) {
+            UserLevel level = focusService.findUserLevel(userId).orElseGet(() -> FocusService.initialLevel(userId));
+            leaderboardService.update(userId, level.getTotalExperience());
+            experience = FocusService.gainResponse(level.getTotalExperience(), outcome.expGain(),
+                    "修炼结束，吸收了 " + outcome.expGain() + " 点天地灵气。");
+        }
+
+        return new BatchFocusResponse(List.of(results), experience);
+    }
+
+    private Outcome executeInTransaction(Long userId, List<BatchFocusRequest.Operation> operations,
+                                         BatchFocusResponse.Item[] results) {
+        FocusMapper focusMapper = batchSqlSession.getMapper(FocusMapper.class);
+        FocusStatsMapper statsMapper = batchSqlSession.getMapper(FocusStatsMapper.class);
+        UserLevelMapper userLevelMapper = batchSqlSession.getMapper(UserLevelMapper.class);
+        TaskListVersionMapper versionMapper = batchSqlSession.getMapper(TaskListVersionMapper.class);
+
+        Set<Long> taskIds = new LinkedHashSet<>();
+        for (BatchFocusRequest.Operation operation : operations) {
+            if (operation != null && operation.op() != BatchFocusRequest.Type.START && operation.taskId() != null) {
+                taskIds.add(operation.taskId());
+            }
+        }
+        Map<Long, FocusTask> owned = new HashMap<>();
+        if (!taskIds.isEmpty()) {
+            focusMapper.selectTasksByIds(userId, taskIds).forEach(task -> owned.put(task.getId(), task));
+        }
+
+        // 按类型分组入队：同一 SQL 连续执行才会合并成一个 JDBC batch
+        List<Pending> starts = new ArrayList<>();
+        List<Pending> completes = new ArrayList<>();
+        List<Pending> abandons = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            BatchFocusRequest.Operation operation = operations.get(i);
+            BatchFocusRequest.Type op = operation != null ? operation.op() : null;
+            if (op == null) {
+                results[i] = failure(i, null, null, "缺少操作类型");
+                continue;
+            }
+            if (op == BatchFocusRequest.Type.START) {
+                if (operation.durationSeconds() == null || operation.durationSeconds() <= 0) {
+                    results[i] = failure(i, op, null, "修炼时长无效");
+                    continue;
+                }
+                starts.add(new Pending(i, op, FocusService.newRunningTask(userId,
+                        new StartFocusRequest(operation.taskName(), operation.durationSeconds(), operation.startTime()))));
+                continue;
+            }
+
+            Long taskId = operation.taskId();
+            FocusTask task = taskId != null ? owned.get(taskId) : null;
+            if (task == null) {
+                results[i] = failure(i, op, taskId, "修炼任务不存在");
+            } else if (!seen.add(taskId)) {
+                results[i] = failure(i, op, taskId, "同一任务在本批中重复操作");
+            } else if (task.getStatus() != TaskStatus.RUNNING) {
+                results[i] = notRunning(i, op, task);
+            } else {
+                (op == BatchFocusRequest.Type.COMPLETE ? completes : abandons).add(new Pending(i, op, task));
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        starts.forEach(pending -> focusMapper.insertTask(pending.task()));
+        completes.forEach(pending -> focusMapper.completeRunningTask(pending.task().getId(), userId, now));
+        abandons.forEach(pending -> focusMapper.abandonRunningTask(pending.task().getId(), userId, now));
+        Map<String, Deque<Integer>> updateCounts = updateCountsByStatement(batchSqlSession.flushStatements());
+
+        List<FocusTask> started = new ArrayList<>();
+        for (Pending pending : starts) {
+            FocusTask task = pending.task();
+            started.add(task);
+            results[pending.index()] = new BatchFocusResponse.Item(pending.index(), pending.op(), true, task.getId(),
+                    "修炼任务已开始:" + task.getTaskName(), FocusService.formatEndTime(task));
+            eventPublisher.publishEvent(new FocusTaskEvent(FocusTaskEvent.Type.STARTED, userId, task.getId(), task));
+        }
+
+        List<FocusTask> completed = new ArrayList<>();
+        long expGain = 0;
+        // 同批完成的任务共用 now，按任务名合并后每个名字 upsert 一次，当日汇总只 upsert 一次
+        Map<String, long[]> byTaskName = new LinkedHashMap<>();
+        Deque<Integer> completeCounts = updateCounts.getOrDefault("completeRunningTask", new ArrayDeque<>());
+        for (Pending pending : completes) {
+            FocusTask task = pending.task();
+            if (!hit(completeCounts.poll())) {
+                results[pending.index()] = failure(pending.index(), pending.op(), task.getId(),
+                        "任务状态异常，无法完成");
+                continue;
+            }
+            completed.add(task);
+            long[] sum = byTaskName.computeIfAbsent(task.getTaskName() != null ? task.getTaskName() : "",
+                    name -> new long[2]);
+            sum[0] += task.getDurationSeconds();
+            sum[1]++;
+            expGain += task.getDurationSeconds();
+            results[pending.index()] = new BatchFocusResponse.Item(pending.index(), pending.op(), true, task.getId(),
+                    "修炼结束，吸收了 " + task.getDurationSeconds() + " 点天地灵气。", null);
+            eventPublisher.publishEvent(new FocusTaskEvent(FocusTaskEvent.Type.COMPLETED, userId, task.getId(), null));
+        }
+
+        List<Long> abandoned = new ArrayList<>();
+        Deque<Integer> abandonCounts = updateCounts.getOrDefault("abandonRunningTask", new ArrayDeque<>());
+        for (Pending pending : abandons) {
+            Long taskId = pending.task().getId();
+            if (!hit(abandonCounts.poll())) {
+                results[pending.index()] = new BatchFocusResponse.Item(pending.index(), pending.op(), true, taskId,
+                        "任务已结束", null);
+                continue;
+            }
+            abandoned.add(taskId);
+            results[pending.index()] = new BatchFocusResponse.Item(pending.index(), pending.op(), true, taskId,
+                    "任务已放弃", null);
+            eventPublisher.publishEvent(new FocusTaskEvent(FocusTaskEvent.Type.ABANDONED, userId, taskId, null));
+        }
+
+        if (!completed.isEmpty()) {
+            statsMapper.addDaily(userId, now.toLocalDate(), expGain, completed.size());
+            byTaskName.forEach((name, sum) -> statsMapper.addTaskName(userId, name, sum[0], (int) sum[1]));
+        }
+        if (!started.isEmpty() || !completed.isEmpty() || !abandoned.isEmpty()) {
+            // 任务列表版本随最后一次 flush 与本批写入一同提交
+            versionMapper.bump(userId);
+        }
+        if (!completed.isEmpty() && writeBehindBuffer == null) {
+            userLevelMapper.addExperience(userId, expGain);
+        }
+        batchSqlSession.flushStatements();
+
+        log.debug("批量操作完成: userId={}, started={}, completed={}, abandoned={}",
+                userId, started.size(), completed.size(), abandoned.size());
+        return new Outcome(started, completed, abandoned, expGain);
+    }
+
+    /**
+     * 按语句名（不含 Mapper 前缀）汇总各语句的逐条更新行数，顺序与入队顺序一致
+     */
+    private static Map<String, Deque<Integer>> updateCountsByStatement(List<BatchResult> batchResults) {
+        Map<String, Deque<Integer>> counts = new HashMap<>();
+        for (BatchResult batchResult : batchResults) {
+            String id = batchResult.getMappedStatement().getId();
+            Deque<Integer> queue = counts.computeIfAbsent(id.substring(id.lastIndexOf('.') + 1),
+                    key -> new ArrayDeque<>());
+            for (int count : batchResult.getUpdateCounts()) {
+                queue.add(count);
+            }
+        }
+        return counts;
+    }
+
+    private static boolean hit(Integer updateCount) {
+        return updateCount != null && updateCount > 0;
+    }
+
+    private static BatchFocusResponse.Item notRunning(int index, BatchFocusRequest.Type op, FocusTask task) {
+        if (op == BatchFocusRequest.Type.ABANDON) {
+            return new BatchFocusResponse.Item(index, op, true, task.getId(), "任务已结束", null);
+        }
+        if (task.getStatus() == TaskStatus.COMPLETED) {
+            return new BatchFocusResponse.Item(index, op, true, task.getId(), "修炼此前已圆满完成", null);
+        }
+        return failure(index, op, task.getId(), "任务状态异常，无法完成。当前状态: " + task.getStatus());
+    }
+
+    private static BatchFocusResponse.Item failure(int index, BatchFocusRequest.Type op, Long taskId, String message) {
+        return new BatchFocusResponse.Item(index, op, false, taskId, message, null);
+    }
+}
@@ -0,0 +1,113 @@
+package com.antigravity.service;
+
+import com.antigravity.dto.TaskListItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 任务事件推送中心（Server-Sent Events）
+ * 按用户维护 SSE 连接，任务开始/完成/放弃/过期时推送给该用户的所有连接。
+ * 连接建立在 Servlet 异步模式上，空闲连接不占用线程，只占用一个 SseEmitter 对象。
+ */
+@Slf4j
+@Component
+public class FocusEventHub {
+
+    private final ConcurrentHashMap<Long, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final long timeoutMillis;
+
+    public FocusEventHub(@Value("${focus.events.timeout:30m}") Duration timeout) {
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    /**
+     * 建立事件流；首个事件为服务器时钟，客户端据此计算时钟偏差后在本地倒计时
+     */
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitters.compute(userId, (key, set) -> {
+            Set<SseEmitter> target = set != null ? set : ConcurrentHashMap.newKeySet();
+            target.add(emitter);
+            return target;
+        });
+
+        Runnable remove = () -> unsubscribe(userId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        send(userId, emitter, SseEmitter.event()
+                .name("clock")
+                .reconnectTime(3000)
+                .data(Map.of("serverTime", System.currentTimeMillis())));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskEvent(FocusTaskEvent event) {
+        Set<SseEmitter> targets = emitters.get(event.userId());
+        if (targets == null) {
+            return;
+        }
+
+        Object data = event.task() != null
+                ? TaskListItem.running(event.task(), LocalDateTime.now())
+                : Map.of("taskId", event.taskId());
+        String name = event.type().name().toLowerCase(Locale.ROOT);
+        for (SseEmitter emitter : targets) {
+            send(event.userId(), emitter, SseEmitter.event().name(name).data(data));
+        }
+    }
+
+    /**
+     * 定期发送注释行作为心跳，及时发现已断开的连接，也避免代理因空闲断开
+     */
+    @Scheduled(fixedDelayString = "${focus.events.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        emitters.forEach((userId, targets) -> {
+            for (SseEmitter emitter : targets) {
+                send(userId, emitter, SseEmitter.event().comment("ping"));
+            }
+        });
+    }
+
+    /**
+     * 当前保持的连接数
+     */
+    public int connectionCount() {
+        return emitters.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void send(Long userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException e) {
+            // 客户端已断开
+            log.debug("SSE 推送失败，移除连接: userId={}, {}", userId, e.getMessage());
+            unsubscribe(userId, emitter);
+            emitter.completeWithError(e);
+        } catch (IllegalStateException e) {
+            // 连接已超时或已结束
+            unsubscribe(userId, emitter);
+        }
+    }
+
+    private void unsubscribe(Long userId, SseEmitter emitter) {
+        emitters.computeIfPresent(userId, (key, set) -> {
+            set.remove(emitter);
+            return set.isEmpty() ? null : set;
+        });
+    }
+}
@@ -0,0 +1,114 @@
+package com.antigravity.service;
+
+import com.antigravity.dto.TaskListItem;
+import com.antigravity.entity.FocusTask;
+import com.antigravity.entity.TaskStatus;
+import com.antigravity.mapper.FocusMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * 专注历史导出
+ * 通过 MyBatis Cursor 逐行读取（MySQL 流式结果集），逐行写入输出流，内存占用与任务数量无关。
+ * 游标需要在会话打开期间消费，而流式响应在控制器返回后才写出，因此这里自行打开并关闭 SqlSession。
+ */
+@Service
+public class FocusExportService {
+
+    private static final String CSV_HEADER =
+            "id,taskName,durationSeconds,status,startedAt,expectedEndAt,completedAt\n";
+
+    private final SqlSessionFactory sqlSessionFactory;
+    /**
+     * 行之间以换行分隔；不逐行 flush（由缓冲区决定写出时机），也不在结束时关闭响应流
+     */
+    private final ObjectWriter rowWriter;
+
+    public FocusExportService(SqlSessionFactory sqlSessionFactory, ObjectMapper objectMapper) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.rowWriter = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * 每行一个 JSON 对象，字段与 /tasks、/history 返回的条目一致
+     */
+    public void writeNdjson(Long userId, OutputStream out) throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Cursor<FocusTask> cursor = session.getMapper(FocusMapper.class).streamTasksByUserId(userId);
+             SequenceWriter writer = rowWriter.writeValues(out)) {
+            // 先提交响应头，客户端立即开始接收
+            out.flush();
+            for (FocusTask task : cursor) {
+                writer.write(task.getStatus() == TaskStatus.RUNNING
+                        ? TaskListItem.running(task, now)
+                        : TaskListItem.finished(task));
+            }
+            writer.flush();
+        }
+    }
+
+    /**
+     * 带表头的 CSV（UTF-8 BOM，便于表格软件识别中文）
+     */
+    public void writeCsv(Long userId, OutputStream out) throws IOException {
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Cursor<FocusTask> cursor = session.getMapper(FocusMapper.class).streamTasksByUserId(userId)) {
+            // 不关闭 writer：响应流由容器关闭
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write('\uFEFF');
+            writer.write(CSV_HEADER);
+            writer.flush();
+            for (FocusTask task : cursor) {
+                writer.write(String.valueOf(task.getId()));
+                writer.write(',');
+                writer.write(csvText(task.getTaskName()));
+                writer.write(',');
+                writer.write(csvValue(task.getDurationSeconds()));
+                writer.write(',');
+                writer.write(csvValue(task.getStatus()));
+                writer.write(',');
+                writer.write(csvValue(task.getStartedAt()));
+                writer.write(',');
+                writer.write(csvValue(task.getExpectedEndAt()));
+                writer.write(',');
+                writer.write(csvValue(task.getCompletedAt()));
+                writer.write('\n');
+            }
+            writer.flush();
+        }
+    }
+
+    private static String csvValue(Object value) {
+        return value != null ? value.toString() : "";
+    }
+
+    /**
+     * 用户输入的文本：按 RFC 4180 加引号转义；以 = + - @ 开头时加单引号前缀，防止被表格软件当作公式执行
+     */
+    private static String csvText(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String text = "=+-@".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,239 @@
+package com.antigravity.service;
+
+import com.antigravity.cache.TaskListVersions;
+import com.antigravity.cache.UserLookupCache;
+import com.antigravity.common.ResultCode;
+import com.antigravity.dto.FocusResponse;
+import com.antigravity.dto.StartFocusRequest;
+import com.antigravity.dto.StartFocusResponse;
+import com.antigravity.entity.CultivationRank;
+import com.antigravity.entity.FocusTask;
+import com.antigravity.entity.TaskStatus;
+import com.antigravity.entity.UserLevel;
+import com.antigravity.exception.BusinessException;
+import com.antigravity.mapper.FocusMapper;
+import com.antigravity.mapper.UserLevelMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+/**
+ * 专注任务服务
+ */
+@Slf4j
+@Service
+public class FocusService {
+
+    private final FocusMapper focusMapper;
+    private final UserLevelMapper userLevelMapper;
+    private final ExperienceWriteBehindBuffer writeBehindBuffer;
+    private final TaskExpiryWheel expiryWheel;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LeaderboardService leaderboardService;
+    private final FocusStatsService focusStatsService;
+    private final UserLookupCache userLookupCache;
+    private final TaskListVersions taskListVersions;
+
+    private static final DateTimeFormatter END_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public FocusService(FocusMapper focusMapper, UserLevelMapper userLevelMapper,
+                        ObjectProvider<ExperienceWriteBehindBuffer> writeBehindBuffer,
+                        ObjectProvider<TaskExpiryWheel> expiryWheel,
+                        ApplicationEventPublisher eventPublisher,
+                        LeaderboardService leaderboardService,
+                        FocusStatsService focusStatsService,
+                        UserLookupCache userLookupCache,
+                        TaskListVersions taskListVersions) {
+        this.focusMapper = focusMapper;
+        this.userLevelMapper = userLevelMapper;
+        this.writeBehindBuffer = writeBehindBuffer.getIfAvailable();
+        this.expiryWheel = expiryWheel.getIfAvailable();
+        this.eventPublisher = eventPublisher;
+        this.leaderboardService = leaderboardService;
+        this.focusStatsService = focusStatsService;
+        this.userLookupCache = userLookupCache;
+        this.taskListVersions = taskListVersions;
+    }
+
+    /**
+     * 开始专注任务，提交后登记到超时时间轮；任务列表版本与任务在同一事务内写入
+     */
+    @Transactional
+    public StartFocusResponse startFocus(Long userId, StartFocusRequest request) {
+        FocusTask task = newRunningTask(userId, request);
+
+        focusMapper.insertTask(task);
+        taskListVersions.bump(userId);
+        log.debug("Task created with ID: {} for user: {}", task.getId(), userId);
+
+        if (expiryWheel != null) {
+            afterCommit(() -> expiryWheel.schedule(task));
+        }
+        eventPublisher.publishEvent(new FocusTaskEvent(FocusTaskEvent.Type.STARTED, userId, task.getId(), task));
+
+        return new StartFocusResponse(
+                task.getId(),
+                "修炼任务已开始:" + request.taskName(),
+                formatEndTime(task));
+    }
+
+    /**
+     * 按请求构造一个待插入的 RUNNING 任务；startTime 缺省或无法解析时以当前时间为准
+     */
+    static FocusTask newRunningTask(Long userId, StartFocusRequest request) {
+        FocusTask task = new FocusTask();
+        task.setUserId(userId);
+        task.setTaskName(request.taskName());
+        task.setDurationSeconds(request.durationSeconds());
+        task.setStatus(TaskStatus.RUNNING);
+
+        LocalDateTime startedAt;
+        if (request.startTime() != null && !request.startTime().isEmpty()) {
+            try {
+                // Parse ISO format "yyyy-MM-ddTHH:mm:ss" usually, expecting standard format
+                // from frontend
+                startedAt = LocalDateTime.parse(request.startTime());
+            } catch (Exception e) {
+                // Fallback or specific custom format
+                startedAt = LocalDateTime.now();
+            }
+        } else {
+            startedAt = LocalDateTime.now();
+        }
+
+        task.setStartedAt(startedAt);
+        task.setExpectedEndAt(startedAt.plusSeconds(request.durationSeconds()));
+        return task;
+    }
+
+    static String formatEndTime(FocusTask task) {
+        return task.getExpectedEndAt().format(END_TIME_FORMATTER);
+    }
+
+    /**
+     * 放弃运行中的任务；不存在、不属于该用户或已结束的任务静默忽略
+     */
+    @Transactional
+    public void abandonTask(Long userId, Long taskId) {
+        if (focusMapper.abandonRunningTask(taskId, userId, LocalDateTime.now()) == 0) {
+            return;
+        }
+        taskListVersions.bump(userId);
+        if (expiryWheel != null) {
+            afterCommit(() -> expiryWheel.cancel(taskId));
+        }
+        eventPublisher.publishEvent(new FocusTaskEvent(FocusTaskEvent.Type.ABANDONED, userId, taskId, null));
+    }
+
+    /**
+     * 完成专注任务并累加修为
+     * 任务状态用带 status = 'RUNNING' 条件的 UPDATE 抢占，修为在数据库内原子累加，
+     * 多端同时完成同一任务时只有一次生效，也不会出现后写覆盖先写的经验丢失。
+     * 开启写后缓冲时，修为增量在事务提交后进入缓冲区，由 ExperienceWriteBehindBuffer 合并落库。
+     * 专注统计汇总在同一事务内累加；事务提交后把新的总修为同步到排行榜。
+     * 境界由总修为决定（见 CultivationRank），跨过门槛即为突破。
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public FocusResponse completeTask(Long userId, Long taskId) {
+        FocusTask task = focusMapper.selectTaskById(taskId);
+        if (task == null || !userId.equals(task.getUserId())) {
+            throw new BusinessException(ResultCode.NOT_FOUND, "修炼任务不存在");
+        }
+
+        LocalDateTime completedAt = LocalDateTime.now();
+        if (task.getStatus() == TaskStatus.COMPLETED
+                || focusMapper.completeRunningTask(taskId, userId, completedAt) == 0) {
+            return alreadyFinished(userId, taskId);
+        }
+        focusStatsService.recordCompletion(userId, task.getTaskName(), task.getDurationSeconds(), completedAt);
+        taskListVersions.bump(userId);
+
+        if (expiryWheel != null) {
+            afterCommit(() -> expiryWheel.cancel(taskId));
+        }
+        eventPublisher.publishEvent(new FocusTaskEvent(FocusTaskEvent.Type.COMPLETED, userId, taskId, null));
+
+        long expGain = task.getDurationSeconds();
+        long totalExperience;
+        if (writeBehindBuffer != null) {
+            UserLevel level = findUserLevel(userId).orElseGet(() -> initialLevel(userId));
+            totalExperience = level.getTotalExperience() + expGain;
+            afterCommit(() -> writeBehindBuffer.add(userId, expGain));
+        } else {
+            userLevelMapper.addExperience(userId, expGain);
+            totalExperience = userLevelMapper.getUserLevelByUserId(userId)
+                    .orElseThrow(() -> new IllegalStateException("user_level 行不存在: " + userId))
+                    .getTotalExperience();
+        }
+
+        afterCommit(() -> leaderboardService.update(userId, totalExperience));
+        return gainResponse(totalExperience, expGain, "修炼结束，吸收了 " + expGain + " 点天地灵气。");
+    }
+
+    /**
+     * 获得修为后的响应：总修为跨过境界门槛时为突破，否则使用给定的提示
+     */
+    static FocusResponse gainResponse(long totalExperience, long expGain, String message) {
+        CultivationRank rank = CultivationRank.forExperience(totalExperience);
+        boolean levelUp = rank.compareTo(CultivationRank.forExperience(totalExperience - expGain)) > 0;
+        return new FocusResponse(levelUp ? "✨ 天地异象！渡劫成功！境界提升至 " + rank + "！ ✨" : message,
+                rank.displayName(), totalExperience, levelUp);
+    }
+
+    /**
+     * 读取用户修为（事务外走缓存）；开启写后缓冲时会叠加尚未落库的增量
+     */
+    public Optional<UserLevel> findUserLevel(Long userId) {
+        return writeBehindBuffer != null
+                ? writeBehindBuffer.getUserLevel(userId)
+                : userLookupCache.getUserLevel(userId);
+    }
+
+    /**
+     * 条件更新未命中：任务已被其他请求完成，或处于无法完成的状态
+     */
+    private FocusResponse alreadyFinished(Long userId, Long taskId) {
+        FocusTask current = focusMapper.selectTaskById(taskId);
+        if (current == null || current.getStatus() != TaskStatus.COMPLETED) {
+            throw new BusinessException(ResultCode.BAD_REQUEST,
+                    "任务状态异常，无法完成。当前状态: " + (current != null ? current.getStatus() : null));
+        }
+
+        UserLevel level = findUserLevel(userId).orElseGet(() -> initialLevel(userId));
+        return new FocusResponse("修炼此前已圆满完成", CultivationRank.forExperience(level.getTotalExperience()).displayName(),
+                level.getTotalExperience(), false);
+    }
+
+    /**
+     * 当前事务提交后执行；没有事务时立即执行
+     */
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    static UserLevel initialLevel(Long userId) {
+        UserLevel initial = new UserLevel();
+        initial.setUserId(userId);
+        initial.setTotalExperience(0L);
+        initial.setCultivationRank(CultivationRank.INITIAL);
+        return initial;
+    }
+}
@@ -0,0 +1,135 @@
+package com.antigravity.service;
+
+import com.antigravity.dto.FocusStatsResponse;
+import com.antigravity.entity.FocusDailyStats;
+import com.antigravity.mapper.FocusStatsMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 专注统计
+ * 完成任务时在同一事务内对 focus_daily_stats / focus_task_name_stats 做 upsert 累加，
+ * 看板只读汇总表，耗时与用户历史任务数量无关。
+ * 启动后按用户分段从 focus_task 回填，进度记在 focus_stats_backfill：回填完成前每次启动都从上次进度继续，
+ * 完成后不再执行；focus.stats.backfill.force=true 时从头重算。
+ */
+@Slf4j
+@Service
+public class FocusStatsService {
+
+    private static final int MAX_DAYS = 90;
+    private static final int TOP_TASK_NAMES = 10;
+
+    private final FocusStatsMapper focusStatsMapper;
+    private final boolean forceBackfill;
+    private final int backfillChunkSize;
+
+    public FocusStatsService(FocusStatsMapper focusStatsMapper,
+                             @Value("${focus.stats.backfill.force:false}") boolean forceBackfill,
+                             @Value("${focus.stats.backfill.chunk-size:500}") int backfillChunkSize) {
+        this.focusStatsMapper = focusStatsMapper;
+        this.forceBackfill = forceBackfill;
+        this.backfillChunkSize = backfillChunkSize;
+    }
+
+    /**
+     * 记入一次完成；须在完成任务的事务内调用
+     */
+    public void recordCompletion(Long userId, String taskName, int durationSeconds, LocalDateTime completedAt) {
+        focusStatsMapper.addDaily(userId, completedAt.toLocalDate(), durationSeconds, 1);
+        focusStatsMapper.addTaskName(userId, taskName != null ? taskName : "", durationSeconds, 1);
+    }
+
+    /**
+     * 统计看板，days 为逐日明细的天数（含今天），没有记录的日期补 0
+     * 只读事务：开启读写分离时几条汇总查询在同一个只读库连接上执行
+     */
+    @Transactional(readOnly = true)
+    public FocusStatsResponse getStats(Long userId, int days) {
+        int dayCount = Math.max(1, Math.min(days, MAX_DAYS));
+        LocalDate today = LocalDate.now();
+        LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate rangeStart = today.minusDays(dayCount - 1L);
+        LocalDate from = rangeStart.isBefore(weekStart) ? rangeStart : weekStart;
+
+        Map<LocalDate, FocusDailyStats> byDate = focusStatsMapper.selectDaily(userId, from, today).stream()
+                .collect(Collectors.toMap(FocusDailyStats::getStatDate, Function.identity()));
+
+        long weekSeconds = 0;
+        int weekTaskCount = 0;
+        for (LocalDate date = weekStart; !date.isAfter(today); date = date.plusDays(1)) {
+            FocusDailyStats stats = byDate.get(date);
+            if (stats != null) {
+                weekSeconds += stats.getFocusSeconds();
+                weekTaskCount += stats.getTaskCount();
+            }
+        }
+
+        List<FocusStatsResponse.DailyFocus> daily = new ArrayList<>(dayCount);
+        for (LocalDate date = rangeStart; !date.isAfter(today); date = date.plusDays(1)) {
+            FocusDailyStats stats = byDate.get(date);
+            daily.add(stats != null
+                    ? new FocusStatsResponse.DailyFocus(date, stats.getFocusSeconds(), stats.getTaskCount())
+                    : new FocusStatsResponse.DailyFocus(date, 0, 0));
+        }
+        FocusStatsResponse.DailyFocus todayStats = daily.get(daily.size() - 1);
+
+        List<FocusStatsResponse.TaskNameFocus> topTasks = focusStatsMapper.selectTopTaskNames(userId, TOP_TASK_NAMES)
+                .stream()
+                .map(stats -> new FocusStatsResponse.TaskNameFocus(
+                        stats.getTaskName(), stats.getFocusSeconds(), stats.getTaskCount()))
+                .collect(Collectors.toList());
+
+        return new FocusStatsResponse(todayStats.focusSeconds(), todayStats.taskCount(),
+                weekSeconds, weekTaskCount, daily, topTasks);
+    }
+
+    /**
+     * 从 focus_task 回填汇总表；每段用户各执行一条 INSERT ... SELECT，覆盖写入，重复执行同一段结果不变。
+     * 每段写入后记录进度，最后一段写入后才标记完成：中断（如发布期间重启）后下次启动从进度处继续。
+     * 是否回填只看完成标记，不看汇总表是否有数据——启动后到回填开始前的实时完成也会写入汇总表。
+     */
+    @Async("taskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (forceBackfill) {
+            focusStatsMapper.resetBackfill();
+        }
+        Long resumeAfter = focusStatsMapper.selectPendingBackfillUserId();
+        if (resumeAfter == null) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        long afterId = resumeAfter;
+        int users = 0;
+        List<Long> chunk;
+        while (!(chunk = focusStatsMapper.selectUserIdsAfter(afterId, backfillChunkSize)).isEmpty()) {
+            long fromId = chunk.get(0);
+            long toId = chunk.get(chunk.size() - 1);
+            focusStatsMapper.rebuildDaily(fromId, toId);
+            focusStatsMapper.rebuildTaskNames(fromId, toId);
+            focusStatsMapper.saveBackfillProgress(toId);
+            users += chunk.size();
+            afterId = toId;
+        }
+        focusStatsMapper.markBackfillCompleted();
+        log.info("专注统计回填完成: resumedAfter={}, users={}, elapsed={}ms",
+                resumeAfter, users, System.currentTimeMillis() - start);
+    }
+}
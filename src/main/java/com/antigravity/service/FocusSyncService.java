@@ -0,0 +1,257 @@
+package com.antigravity.service;
+
+import com.antigravity.cache.TaskListVersions;
+import com.antigravity.common.ResultCode;
+import com.antigravity.dto.FocusResponse;
+import com.antigravity.dto.SyncSessionsRequest;
+import com.antigravity.dto.SyncSessionsResponse;
+import com.antigravity.entity.FocusTask;
+import com.antigravity.entity.TaskStatus;
+import com.antigravity.entity.UserLevel;
+import com.antigravity.exception.BusinessException;
+import com.antigravity.mapper.FocusMapper;
+import com.antigravity.mapper.FocusStatsMapper;
+import com.antigravity.mapper.UserLevelMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 离线同步
+ * 客户端把断网期间完成的专注记录连同幂等键一次性上传：先查出已同步过的键，
+ * 其余记录用一条多行 INSERT 直接以 COMPLETED 入库，统计汇总按日期 / 任务名合并累加，
+ * 修为只累加一次总和。(user_id, client_session_id) 唯一索引兜底并发重复提交：
+ * 冲突时整个事务回滚，重新查重后重试。
+ */
+@Slf4j
+@Service
+public class FocusSyncService {
+
+    private static final int MAX_CLIENT_SESSION_ID_LENGTH = 64;
+    private static final int MAX_TASK_NAME_LENGTH = 255;
+    private static final int SYNC_ATTEMPTS = 3;
+
+    private final FocusMapper focusMapper;
+    private final FocusStatsMapper focusStatsMapper;
+    private final UserLevelMapper userLevelMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final FocusService focusService;
+    private final LeaderboardService leaderboardService;
+    private final ExperienceWriteBehindBuffer writeBehindBuffer;
+    private final TaskListVersions taskListVersions;
+    private final int maxSessions;
+    private final long maxDurationSeconds;
+
+    /**
+     * 通过校验、等待入库的一条记录；index 为请求列表下标
+     */
+    private record Candidate(int index, FocusTask task) {
+    }
+
+    /**
+     * 事务提交后需要处理的结果
+     */
+    private record Outcome(int inserted, long expGain) {
+    }
+
+    public FocusSyncService(FocusMapper focusMapper, FocusStatsMapper focusStatsMapper,
+                            UserLevelMapper userLevelMapper,
+                            PlatformTransactionManager transactionManager,
+                            FocusService focusService,
+                            LeaderboardService leaderboardService,
+                            ObjectProvider<ExperienceWriteBehindBuffer> writeBehindBuffer,
+                            TaskListVersions taskListVersions,
+                            @Value("${focus.sync.max-sessions:500}") int maxSessions,
+                            @Value("${focus.sync.max-duration:24h}") Duration maxDuration) {
+        this.focusMapper = focusMapper;
+        this.focusStatsMapper = focusStatsMapper;
+        this.userLevelMapper = userLevelMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.focusService = focusService;
+        this.leaderboardService = leaderboardService;
+        this.writeBehindBuffer = writeBehindBuffer.getIfAvailable();
+        this.taskListVersions = taskListVersions;
+        this.maxSessions = maxSessions;
+        this.maxDurationSeconds = maxDuration.toSeconds();
+    }
+
+    public SyncSessionsResponse sync(Long userId, SyncSessionsRequest request) {
+        List<SyncSessionsRequest.Session> sessions = request != null ? request.sessions() : null;
+        if (sessions == null || sessions.isEmpty()) {
+            throw new BusinessException(ResultCode.BAD_REQUEST, "同步记录不能为空");
+        }
+        if (sessions.size() > maxSessions) {
+            throw new BusinessException(ResultCode.BAD_REQUEST, "单次同步不能超过 " + maxSessions + " 条记录");
+        }
+
+        SyncSessionsResponse.Item[] results = new SyncSessionsResponse.Item[sessions.size()];
+        List<Candidate> candidates = validate(userId, sessions, results);
+
+        Outcome outcome = new Outcome(0, 0);
+        if (!candidates.isEmpty()) {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    outcome = transactionTemplate.execute(status -> syncInTransaction(userId, candidates, results));
+                    break;
+                } catch (DuplicateKeyException e) {
+                    // 另一个请求同时提交了相同的键：事务已回滚，重新查重后再试
+                    if (attempt >= SYNC_ATTEMPTS) {
+                        throw e;
+                    }
+                    candidates.forEach(candidate -> candidate.task().setId(null));
+                }
+            }
+        }
+
+        FocusResponse experience = null;
+        if (outcome.inserted() > 0) {
+            // 以下均在提交之后：写后缓冲与排行榜只应看到已提交的结果
+            if (writeBehindBuffer != null) {
+                writeBehindBuffer.add(userId, outcome.expGain());
+            }
+            UserLevel level = focusService.findUserLevel(userId).orElseGet(() -> FocusService.initialLevel(userId));
+            leaderboardService.update(userId, level.getTotalExperience());
+            experience = FocusService.gainResponse(level.getTotalExperience(), outcome.expGain(),
+                    "离线修炼已同步，吸收了 " + outcome.expGain() + " 点天地灵气。");
+        }
+
+        log.debug("离线同步完成: userId={}, submitted={}, inserted={}", userId, sessions.size(), outcome.inserted());
+        return new SyncSessionsResponse(List.of(results), experience);
+    }
+
+    /**
+     * 逐项校验并构造待入库的任务；无效项与本次请求内的重复键直接写入结果
+     */
+    private List<Candidate> validate(Long userId, List<SyncSessionsRequest.Session> sessions,
+                                            SyncSessionsResponse.Item[] results) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Candidate> candidates = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < sessions.size(); i++) {
+            SyncSessionsRequest.Session session = sessions.get(i);
+            String key = session != null ? session.clientSessionId() : null;
+            if (key == null || key.isBlank() || key.length() > MAX_CLIENT_SESSION_ID_LENGTH) {
+                results[i] = rejected(i, key, "幂等键无效");
+                continue;
+            }
+            if (session.durationSeconds() == null || session.durationSeconds() <= 0
+                    || session.durationSeconds() > maxDurationSeconds) {
+                results[i] = rejected(i, key, "修炼时长无效");
+                continue;
+            }
+            if (session.taskName() != null && session.taskName().length() > MAX_TASK_NAME_LENGTH) {
+                results[i] = rejected(i, key, "任务名称过长");
+                continue;
+            }
+
+            LocalDateTime startedAt;
+            LocalDateTime completedAt;
+            try {
+                startedAt = LocalDateTime.parse(session.startedAt());
+                completedAt = session.completedAt() != null && !session.completedAt().isEmpty()
+                        ? LocalDateTime.parse(session.completedAt())
+                        : startedAt.plusSeconds(session.durationSeconds());
+            } catch (DateTimeParseException | NullPointerException e) {
+                results[i] = rejected(i, key, "时间格式无效");
+                continue;
+            }
+            // 开始到完成的间隔不能短于申报的修炼时长
+            if (completedAt.isBefore(startedAt.plusSeconds(session.durationSeconds())) || completedAt.isAfter(now)) {
+                results[i] = rejected(i, key, "时间范围无效");
+                continue;
+            }
+            if (!seen.add(key)) {
+                results[i] = new SyncSessionsResponse.Item(i, key, SyncSessionsResponse.Status.DUPLICATE, null,
+                        "同一记录在本次同步中重复出现");
+                continue;
+            }
+
+            FocusTask task = new FocusTask();
+            task.setUserId(userId);
+            task.setTaskName(session.taskName());
+            task.setDurationSeconds(session.durationSeconds());
+            task.setStatus(TaskStatus.COMPLETED);
+            task.setStartedAt(startedAt);
+            task.setExpectedEndAt(startedAt.plusSeconds(session.durationSeconds()));
+            task.setCompletedAt(completedAt);
+            task.setClientSessionId(key);
+            candidates.add(new Candidate(i, task));
+        }
+        return candidates;
+    }
+
+    private Outcome syncInTransaction(Long userId, List<Candidate> candidates, SyncSessionsResponse.Item[] results) {
+        List<String> keys = candidates.stream().map(candidate -> candidate.task().getClientSessionId()).toList();
+        Set<String> synced = new HashSet<>(focusMapper.selectSyncedSessionKeys(userId, keys));
+
+        List<Candidate> fresh = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (synced.contains(candidate.task().getClientSessionId())) {
+                results[candidate.index()] = new SyncSessionsResponse.Item(candidate.index(),
+                        candidate.task().getClientSessionId(), SyncSessionsResponse.Status.DUPLICATE, null,
+                        "该记录此前已同步");
+            } else {
+                fresh.add(candidate);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return new Outcome(0, 0);
+        }
+
+        List<FocusTask> tasks = fresh.stream().map(Candidate::task).toList();
+        focusMapper.insertTasks(tasks);
+        taskListVersions.bump(userId);
+
+        // 统计汇总按日期、任务名合并后各累加一次，而不是逐条 upsert
+        Map<LocalDate, long[]> daily = new LinkedHashMap<>();
+        Map<String, long[]> byTaskName = new HashMap<>();
+        long expGain = 0;
+        for (Candidate candidate : fresh) {
+            FocusTask task = candidate.task();
+            int seconds = task.getDurationSeconds();
+            accumulate(daily.computeIfAbsent(task.getCompletedAt().toLocalDate(), date -> new long[2]), seconds);
+            accumulate(byTaskName.computeIfAbsent(task.getTaskName() != null ? task.getTaskName() : "",
+                    name -> new long[2]), seconds);
+            expGain += seconds;
+            results[candidate.index()] = new SyncSessionsResponse.Item(candidate.index(), task.getClientSessionId(),
+                    SyncSessionsResponse.Status.INSERTED, task.getId(), "修炼记录已同步");
+        }
+        daily.forEach((date, sum) -> focusStatsMapper.addDaily(userId, date, sum[0], (int) sum[1]));
+        byTaskName.forEach((name, sum) -> focusStatsMapper.addTaskName(userId, name, sum[0], (int) sum[1]));
+
+        if (writeBehindBuffer == null) {
+            userLevelMapper.addExperience(userId, expGain);
+        }
+        return new Outcome(fresh.size(), expGain);
+    }
+
+    /**
+     * sum[0] 为累计秒数，sum[1] 为记录数
+     */
+    private static void accumulate(long[] sum, int seconds) {
+        sum[0] += seconds;
+        sum[1]++;
+    }
+
+    private static SyncSessionsResponse.Item rejected(int index, String clientSessionId, String message) {
+        return new SyncSessionsResponse.Item(index, clientSessionId, SyncSessionsResponse.Status.REJECTED, null, message);
+    }
+}
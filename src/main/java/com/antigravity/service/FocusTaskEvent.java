@@ -0,0 +1,19 @@
+package com.antigravity.service;
+
+import com.antigravity.entity.FocusTask;
+
+/**
+ * 专注任务状态变化事件
+ * 由 FocusService 和 TaskExpiryWheel 发布；事务内发布的事件在提交后才会被监听者处理。
+ *
+ * @param task 仅 STARTED 事件携带完整任务，其余事件为 null
+ */
+public record FocusTaskEvent(Type type, Long userId, Long taskId, FocusTask task) {
+
+    public enum Type {
+        STARTED,
+        COMPLETED,
+        ABANDONED,
+        EXPIRED
+    }
+}
@@ -0,0 +1,108 @@
+package com.antigravity.service;
+
+import com.antigravity.mapper.UserMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 闲置游客清理
+ * 每次游客登录都会新建 user 行，这里定期删除创建超过 TTL 且 TTL 内没有任务活动的游客。
+ * 按 id 游标分段，每段一条 DELETE 自动提交，锁只覆盖当前段；关联数据依赖 ON DELETE CASCADE。
+ * 近期完成过任务的用户不会被选中，因此不会与修为写后缓冲中的待刷增量冲突。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "focus.guest-reaper", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class GuestReaper {
+
+    private final UserMapper userMapper;
+    private final LeaderboardService leaderboardService;
+    private final Duration ttl;
+    private final int chunkSize;
+    private final long chunkPauseMillis;
+
+    private final AtomicLong deletedUsers = new AtomicLong();
+    private final AtomicLong deletedTasks = new AtomicLong();
+
+    public GuestReaper(UserMapper userMapper,
+                       LeaderboardService leaderboardService,
+                       @Value("${focus.guest-reaper.ttl:30d}") Duration ttl,
+                       @Value("${focus.guest-reaper.chunk-size:200}") int chunkSize,
+                       @Value("${focus.guest-reaper.chunk-pause-ms:50}") long chunkPauseMillis) {
+        this.userMapper = userMapper;
+        this.leaderboardService = leaderboardService;
+        this.ttl = ttl;
+        this.chunkSize = chunkSize;
+        this.chunkPauseMillis = chunkPauseMillis;
+    }
+
+    @Scheduled(cron = "${focus.guest-reaper.cron:0 30 4 * * *}")
+    public void purge() {
+        LocalDateTime idleBefore = LocalDateTime.now().minus(ttl);
+        long start = System.currentTimeMillis();
+        long users = 0;
+        long tasks = 0;
+        long afterId = 0;
+
+        try {
+            List<Long> chunk;
+            while (!(chunk = userMapper.selectIdleGuestIds(afterId, idleBefore, chunkSize)).isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1);
+
+                long chunkTasks = userMapper.countTasksByUserIds(chunk);
+                int chunkUsers = userMapper.deleteIdleGuests(chunk, idleBefore);
+                if (chunkUsers > 0) {
+                    users += chunkUsers;
+                    tasks += chunkTasks;
+                    removeFromLeaderboard(chunk, chunkUsers);
+                }
+
+                if (chunkPauseMillis > 0) {
+                    Thread.sleep(chunkPauseMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            deletedUsers.addAndGet(users);
+            deletedTasks.addAndGet(tasks);
+            log.info("闲置游客清理完成: users={}, tasks={}, idleBefore={}, elapsed={}ms",
+                    users, tasks, idleBefore, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 删除时被重新校验跳过的游客仍在库中，只把确实删掉的移出排行榜
+     */
+    private void removeFromLeaderboard(List<Long> chunk, int deleted) {
+        Set<Long> removed = new HashSet<>(chunk);
+        if (deleted < chunk.size()) {
+            userMapper.findNicknamesByIds(chunk).forEach(user -> removed.remove(user.getId()));
+        }
+        removed.forEach(leaderboardService::remove);
+    }
+
+    /**
+     * 启动以来累计删除的游客数
+     */
+    public long getDeletedUsers() {
+        return deletedUsers.get();
+    }
+
+    /**
+     * 启动以来随游客级联删除的任务数（删除前统计，近似值）
+     */
+    public long getDeletedTasks() {
+        return deletedTasks.get();
+    }
+}
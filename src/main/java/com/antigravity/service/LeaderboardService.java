@@ -0,0 +1,125 @@
+package com.antigravity.service;
+
+import com.antigravity.dto.LeaderboardEntry;
+import com.antigravity.dto.LeaderboardRank;
+import com.antigravity.entity.User;
+import com.antigravity.mapper.UserLevelMapper;
+import com.antigravity.mapper.UserMapper;
+import com.antigravity.util.IndexedSkipList;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 修为排行榜
+ * 启动时从 user_level 流式加载到内存跳表，之后由每次完成任务后的总修为增量维护，
+ * 取前 N 名和查询个人名次都不再访问 user_level。
+ * 修为只增不减，更新按"取较大值"合并，因此加载与实时更新的先后顺序、并发完成的提交顺序都不影响结果。
+ */
+@Slf4j
+@Service
+public class LeaderboardService {
+
+    private final UserLevelMapper userLevelMapper;
+    private final UserMapper userMapper;
+
+    private final IndexedSkipList board = new IndexedSkipList();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public LeaderboardService(UserLevelMapper userLevelMapper, UserMapper userMapper) {
+        this.userLevelMapper = userLevelMapper;
+        this.userMapper = userMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        userLevelMapper.scanExperience(context -> {
+            var level = context.getResultObject();
+            update(level.getUserId(), level.getTotalExperience() != null ? level.getTotalExperience() : 0L);
+        });
+        log.info("排行榜加载完成: users={}, elapsed={}ms", size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 记录用户最新的总修为；比已记录的值小时忽略
+     */
+    public void update(Long userId, long totalExperience) {
+        lock.writeLock().lock();
+        try {
+            if (totalExperience > board.scoreOf(userId, Long.MIN_VALUE)) {
+                board.put(userId, totalExperience);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long userId) {
+        lock.writeLock().lock();
+        try {
+            board.remove(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 前 limit 名，昵称用一次批量查询补齐
+     */
+    public List<LeaderboardEntry> top(int limit) {
+        List<IndexedSkipList.Entry> entries;
+        lock.readLock().lock();
+        try {
+            entries = board.top(limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, User> users = userMapper.findNicknamesByIds(
+                        entries.stream().map(IndexedSkipList.Entry::key).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        return entries.stream()
+                .map(entry -> new LeaderboardEntry(entry.rank(), entry.key(),
+                        displayName(users.get(entry.key())), entry.score()))
+                .collect(Collectors.toList());
+    }
+
+    public LeaderboardRank rankOf(Long userId) {
+        lock.readLock().lock();
+        try {
+            int rank = board.rankOf(userId);
+            return new LeaderboardRank(rank > 0 ? rank : null, board.scoreOf(userId, 0L), board.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return board.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static String displayName(User user) {
+        if (user == null) {
+            return null;
+        }
+        return user.getNickname() != null ? user.getNickname() : user.getUsername();
+    }
+}
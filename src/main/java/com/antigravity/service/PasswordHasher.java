@@ -0,0 +1,78 @@
+package com.antigravity.service;
+
+import com.antigravity.common.ResultCode;
+import com.antigravity.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 密码哈希与校验
+ * BCrypt 放到有界的 passwordHashExecutor 上执行，不占用 Tomcat 请求线程；
+ * 队列满时立即以 SERVICE_UNAVAILABLE 拒绝，而不是让请求排队拖垮其他接口。
+ * 指标：auth.password.hash（按 operation 区分的哈希耗时）、auth.password.hash.rejected（拒绝次数），
+ * 队列深度由 ApplicationMetricsBinder 导出。
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer verifyTimer;
+    private final Counter rejected;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Qualifier("passwordHashExecutor") ThreadPoolTaskExecutor executor,
+                          MeterRegistry registry) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+        this.encodeTimer = hashTimer(registry, "encode");
+        this.verifyTimer = hashTimer(registry, "verify");
+        this.rejected = Counter.builder("auth.password.hash.rejected")
+                .description("Password hash requests shed because the queue was full")
+                .register(registry);
+    }
+
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(() -> verifyTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * 排队等待执行的哈希任务数
+     */
+    public int getQueueDepth() {
+        return executor.getQueueSize();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("密码哈希队列已满，拒绝请求: queue={}", getQueueDepth());
+            throw new BusinessException(ResultCode.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private static Timer hashTimer(MeterRegistry registry, String operation) {
+        return Timer.builder("auth.password.hash")
+                .description("Time spent in BCrypt on the password hash executor")
+                .tag("operation", operation)
+                .register(registry);
+    }
+}
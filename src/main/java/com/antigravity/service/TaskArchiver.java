@@ -0,0 +1,101 @@
+package com.antigravity.service;
+
+import com.antigravity.mapper.FocusMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * focus_task 归档
+ * 结束超过 focus.archive.min-age 的任务（COMPLETED / ABANDONED / EXPIRED）分批迁入 focus_task_archive，
+ * 每批复制与删除在同一事务内完成，任务在任一时刻只属于一个存储层；
+ * 复制用普通 INSERT，只删除归档表中已存在的行，两者行数不一致时整批回滚。
+ * focus_task 只保留运行中和近期结束的任务，索引与缓冲池占用不再随全部历史增长；
+ * 历史分页与统计回填同时读取两层。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "focus.archive", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TaskArchiver {
+
+    private final FocusMapper focusMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration minAge;
+    private final int batchSize;
+    private final long batchPauseMillis;
+
+    private final AtomicLong archivedTasks = new AtomicLong();
+
+    public TaskArchiver(FocusMapper focusMapper,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${focus.archive.min-age:90d}") Duration minAge,
+                        @Value("${focus.archive.batch-size:500}") int batchSize,
+                        @Value("${focus.archive.batch-pause-ms:50}") long batchPauseMillis) {
+        this.focusMapper = focusMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+        this.batchPauseMillis = batchPauseMillis;
+    }
+
+    @Scheduled(cron = "${focus.archive.cron:0 0 3 * * *}")
+    public void archive() {
+        LocalDateTime before = LocalDateTime.now().minus(minAge);
+        long start = System.currentTimeMillis();
+        long moved = 0;
+
+        try {
+            while (true) {
+                Integer batch = transactionTemplate.execute(status -> moveBatch(before));
+                if (batch == null || batch == 0) {
+                    break;
+                }
+                moved += batch;
+                if (batchPauseMillis > 0) {
+                    Thread.sleep(batchPauseMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("任务归档中止，当前批次已回滚", e);
+        } finally {
+            archivedTasks.addAndGet(moved);
+            log.info("任务归档完成: tasks={}, completedBefore={}, elapsed={}ms",
+                    moved, before, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 迁移一批；返回删除的行数，0 表示没有可归档的任务
+     */
+    private int moveBatch(LocalDateTime before) {
+        List<Long> ids = focusMapper.selectArchivableTaskIds(before, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int copied = focusMapper.copyTasksToArchive(ids);
+        int deleted = focusMapper.deleteArchivedTasks(ids);
+        if (copied != deleted) {
+            // 复制与删除行数不一致：抛出异常回滚整批，任务留在 focus_task
+            throw new IllegalStateException("归档行数不一致: copied=" + copied + ", deleted=" + deleted + ", ids=" + ids);
+        }
+        return deleted;
+    }
+
+    /**
+     * 启动以来累计归档的任务数
+     */
+    public long getArchivedTasks() {
+        return archivedTasks.get();
+    }
+}
@@ -0,0 +1,218 @@
+package com.antigravity.service;
+
+import com.antigravity.cache.TaskListVersions;
+import com.antigravity.entity.FocusTask;
+import com.antigravity.mapper.FocusMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 运行中任务的超时时间轮
+ * 浏览器关闭后任务不会再被完成，超过 expected_end_at + 宽限期仍为 RUNNING 的任务由这里批量置为 EXPIRED。
+ * 启动时从 RUNNING 任务播种，之后由 FocusService 在开始/完成/放弃时登记或撤销；
+ * 整个时间轮只有一个 tick 线程，不为每个任务开线程，也不轮询数据库。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "focus.expiry", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TaskExpiryWheel {
+
+    /**
+     * 时间轮中的一个任务；deadlineTick 决定所在槽位，跨多圈的任务在到期那一圈之前会被跳过
+     */
+    private record Entry(Long taskId, Long userId, long deadlineTick) {
+    }
+
+    private final FocusMapper focusMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaskListVersions taskListVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final long tickMillis;
+    private final long graceMillis;
+    private final int batchSize;
+
+    private final List<Set<Entry>> buckets;
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "focus-expiry-wheel");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 已处理到的 tick，只在 tick 线程内读写
+     */
+    private long lastTick;
+
+    public TaskExpiryWheel(FocusMapper focusMapper,
+                           ApplicationEventPublisher eventPublisher,
+                           TaskListVersions taskListVersions,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${focus.expiry.tick-ms:1000}") long tickMillis,
+                           @Value("${focus.expiry.wheel-size:512}") int wheelSize,
+                           @Value("${focus.expiry.grace-period:30m}") Duration gracePeriod,
+                           @Value("${focus.expiry.batch-size:500}") int batchSize) {
+        this.focusMapper = focusMapper;
+        this.eventPublisher = eventPublisher;
+        this.taskListVersions = taskListVersions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tickMillis = tickMillis;
+        this.graceMillis = gracePeriod.toMillis();
+        this.batchSize = batchSize;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(ConcurrentHashMap.newKeySet());
+        }
+        this.lastTick = currentTick();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        List<FocusTask> running = focusMapper.selectRunningTaskDeadlines();
+        running.forEach(this::schedule);
+        log.info("任务超时时间轮已启动，载入 {} 个运行中任务", running.size());
+        ticker.scheduleAtFixedRate(this::safeTick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * 登记运行中的任务，到期时间为 expected_end_at + 宽限期
+     */
+    public void schedule(FocusTask task) {
+        if (task.getExpectedEndAt() == null) {
+            return;
+        }
+        long deadlineMillis = task.getExpectedEndAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                + graceMillis;
+        // 已过期的任务放到下一个 tick 处理
+        long deadlineTick = Math.max(deadlineMillis / tickMillis, currentTick() + 1);
+
+        Entry entry = new Entry(task.getId(), task.getUserId(), deadlineTick);
+        Entry previous = entries.put(task.getId(), entry);
+        if (previous != null) {
+            bucketOf(previous).remove(previous);
+        }
+        bucketOf(entry).add(entry);
+    }
+
+    /**
+     * 任务已完成或放弃，从时间轮中撤销
+     */
+    public void cancel(Long taskId) {
+        Entry entry = entries.remove(taskId);
+        if (entry != null) {
+            bucketOf(entry).remove(entry);
+        }
+    }
+
+    /**
+     * 时间轮中的任务数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private void safeTick() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            // 异常必须在这里吞掉，否则 scheduleAtFixedRate 会停止后续所有 tick
+            log.error("任务超时时间轮处理失败", e);
+        }
+    }
+
+    private void tick() {
+        long now = currentTick();
+        List<Entry> expired = new ArrayList<>();
+        // 线程被延迟时一次追上所有错过的 tick
+        while (lastTick < now) {
+            lastTick++;
+            Set<Entry> bucket = buckets.get((int) (lastTick % buckets.size()));
+            for (Entry entry : bucket) {
+                if (entry.deadlineTick() <= lastTick && entries.remove(entry.taskId(), entry)) {
+                    bucket.remove(entry);
+                    expired.add(entry);
+                }
+            }
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        // 截断到秒，与 completed_at 列精度一致，便于回查本次置为 EXPIRED 的任务
+        LocalDateTime expiredAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        int updated = 0;
+        for (int from = 0; from < expired.size(); from += batchSize) {
+            List<Entry> batch = expired.subList(from, Math.min(from + batchSize, expired.size()));
+            Set<Long> expiredIds;
+            try {
+                expiredIds = transactionTemplate.execute(status -> expireBatch(batch, expiredAt));
+            } catch (RuntimeException e) {
+                // 数据库暂时不可用时放回时间轮，下一个 tick 重试
+                log.error("批量置 EXPIRED 失败，{} 个任务下个 tick 重试", batch.size(), e);
+                batch.forEach(entry -> retry(new Entry(entry.taskId(), entry.userId(), lastTick + 1)));
+                continue;
+            }
+            updated += expiredIds.size();
+        }
+        log.info("任务超时时间轮: {} 个任务到期，{} 个置为 EXPIRED", expired.size(), updated);
+    }
+
+    /**
+     * 一批任务置为 EXPIRED，并在同一事务内递增相关用户的任务列表版本；返回实际被置为 EXPIRED 的任务 id
+     * 到期前已完成或放弃、撤销还没来得及执行的任务不受条件更新影响，也不发 EXPIRED 事件
+     */
+    private Set<Long> expireBatch(List<Entry> batch, LocalDateTime expiredAt) {
+        List<Long> ids = batch.stream().map(Entry::taskId).toList();
+        if (focusMapper.expireRunningTasks(ids, expiredAt) == 0) {
+            return Set.of();
+        }
+        Set<Long> expiredIds = new HashSet<>(focusMapper.selectExpiredTaskIds(ids, expiredAt));
+        List<Entry> expired = batch.stream().filter(entry -> expiredIds.contains(entry.taskId())).toList();
+        taskListVersions.bumpAll(expired.stream().map(Entry::userId).toList());
+        // 事务内发布，监听者在提交后处理
+        expired.forEach(entry -> eventPublisher.publishEvent(
+                new FocusTaskEvent(FocusTaskEvent.Type.EXPIRED, entry.userId(), entry.taskId(), null)));
+        return expiredIds;
+    }
+
+    private void retry(Entry entry) {
+        // 期间被重新登记过就不再覆盖；已完成的任务即使放回，按 RUNNING 条件更新也不会误伤
+        if (entries.putIfAbsent(entry.taskId(), entry) == null) {
+            bucketOf(entry).add(entry);
+        }
+    }
+
+    private Set<Entry> bucketOf(Entry entry) {
+        return buckets.get((int) (entry.deadlineTick() % buckets.size()));
+    }
+
+    private long currentTick() {
+        return System.currentTimeMillis() / tickMillis;
+    }
+}
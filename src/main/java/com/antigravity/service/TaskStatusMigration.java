@@ -0,0 +1,61 @@
+package com.antigravity.service;
+
+import com.antigravity.mapper.FocusMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 任务状态列在线迁移（VARCHAR → TINYINT）
+ * schema.sql 为仍是 VARCHAR 的表加上可空的 status_code；这里按 id 分段回填，每段一条自动提交的短 UPDATE，
+ * 不长时间持有行锁。回填完成后用一条原地 ALTER 删除旧列、把 status_code 改名为 status 并重建状态索引，
+ * 期间表仍可读写。新建的库 status 已是 TINYINT，不会进入迁移。
+ * 在 Bean 初始化阶段同步执行：完成之前 Web 服务不会开始接收请求，其他组件的启动加载也都在其后。
+ * 迁移期间不要让仍按字符串写入 status 的旧版本实例继续写库。
+ */
+@Slf4j
+@Component
+public class TaskStatusMigration {
+
+    private static final String[] TABLES = {"focus_task", "focus_task_archive"};
+
+    private final FocusMapper focusMapper;
+    private final int chunkSize;
+
+    public TaskStatusMigration(FocusMapper focusMapper,
+                               @Value("${focus.status-migration.chunk-size:5000}") int chunkSize) {
+        this.focusMapper = focusMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        for (String table : TABLES) {
+            if (focusMapper.hasPendingStatusMigration(table)) {
+                migrateTable(table);
+            }
+        }
+    }
+
+    private void migrateTable(String table) {
+        long start = System.currentTimeMillis();
+        long maxId = focusMapper.selectMaxTaskId(table);
+        long updated = 0;
+        for (long afterId = 0; afterId < maxId; afterId += chunkSize) {
+            updated += focusMapper.backfillStatusCodes(table, afterId, afterId + chunkSize);
+        }
+
+        // 回填期间新插入的行（id 大于起始时的最大值）补扫一次
+        long remaining = focusMapper.countUnmigratedStatuses(table);
+        if (remaining > 0) {
+            updated += focusMapper.backfillStatusCodes(table, maxId, Long.MAX_VALUE);
+        }
+
+        focusMapper.finishStatusMigration(table);
+        if ("focus_task".equals(table)) {
+            focusMapper.addRunningTaskIndex();
+        }
+        log.info("{} 状态列迁移完成: 回填 {} 行, 耗时 {} ms", table, updated, System.currentTimeMillis() - start);
+    }
+}
@@ -1,5 +1,6 @@
 package com.antigravity.service;
 
+import com.antigravity.cache.UserLookupCache;
 import com.antigravity.common.ResultCode;
 import com.antigravity.dto.AuthResponse;
 import com.antigravity.dto.LoginRequest;
@@ -7,79 +8,152 @@ import com.antigravity.dto.RegisterRequest;
 import com.antigravity.entity.User;
 import com.antigravity.exception.BusinessException;
 import com.antigravity.mapper.UserMapper;
+import com.antigravity.util.GuestIdGenerator;
 import com.antigravity.util.JwtUtil;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 用户服务
  */
 @Service
-@RequiredArgsConstructor
 public class UserService {
 
+    private static final int GUEST_INSERT_ATTEMPTS = 3;
+
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final GuestIdGenerator guestIdGenerator;
+    private final PasswordHasher passwordHasher;
+    private final UsernameFilter usernameFilter;
+    private final UserLookupCache userLookupCache;
+    private final Executor taskExecutor;
+
+    /**
+     * 所有游客共用的密码哈希：启动时对一段随机密钥哈希一次，没有人知道原文，游客账号无法用密码登录
+     */
+    private final String guestPasswordHash;
+
+    public UserService(UserMapper userMapper, PasswordEncoder passwordEncoder, JwtUtil jwtUtil,
+                       GuestIdGenerator guestIdGenerator, PasswordHasher passwordHasher,
+                       UsernameFilter usernameFilter, UserLookupCache userLookupCache,
+                       @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.userMapper = userMapper;
+        this.passwordEncoder = passwordEncoder;
+        this.jwtUtil = jwtUtil;
+        this.guestIdGenerator = guestIdGenerator;
+        this.passwordHasher = passwordHasher;
+        this.usernameFilter = usernameFilter;
+        this.userLookupCache = userLookupCache;
+        this.taskExecutor = taskExecutor;
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.guestPasswordHash = passwordEncoder.encode(Base64.getEncoder().encodeToString(secret));
+    }
 
     /**
      * 用户注册
+     * 密码哈希在 passwordHashExecutor 上完成，插入用户切回 taskExecutor，不占用按 CPU 核数设置的哈希线程；
+     * taskExecutor 队列已满时同样以 SERVICE_UNAVAILABLE 拒绝。并发注册同名用户由唯一索引兜底。
      */
-    @Transactional
-    public AuthResponse register(RegisterRequest request) {
+    public CompletableFuture<AuthResponse> register(RegisterRequest request) {
         // 检查用户名是否已存在
-        if (userMapper.existsByUsername(request.getUsername())) {
+        if (!isUsernameAvailable(request.getUsername())) {
             throw new BusinessException(ResultCode.BAD_REQUEST, "用户名已存在");
         }
 
-        // 创建用户
-        User user = new User();
-        user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setNickname(request.getNickname() != null ? request.getNickname() : request.getUsername());
-        user.setIsGuest(false);
+        return passwordHasher.encode(request.getPassword()).thenApplyAsync(encodedPassword -> {
+            // 创建用户
+            User user = new User();
+            user.setUsername(request.getUsername());
+            user.setPassword(encodedPassword);
+            user.setNickname(request.getNickname() != null ? request.getNickname() : request.getUsername());
+            user.setIsGuest(false);
+
+            try {
+                userMapper.insert(user);
+            } catch (DuplicateKeyException e) {
+                throw new BusinessException(ResultCode.BAD_REQUEST, "用户名已存在");
+            }
+            usernameFilter.add(user.getUsername());
+
+            // 生成 Token
+            String token = jwtUtil.generateToken(user.getUsername(), user.getId(), false);
+            return new AuthResponse(token, user.getUsername(), user.getNickname(), false);
+        }, this::executeOrShed);
+    }
 
-        userMapper.insert(user);
+    /**
+     * 在 taskExecutor 上执行；队列已满时按过载处理，与 PasswordHasher 的拒绝一致返回 503 而不是 500
+     */
+    private void executeOrShed(Runnable command) {
+        try {
+            taskExecutor.execute(command);
+        } catch (RejectedExecutionException e) {
+            throw new BusinessException(ResultCode.SERVICE_UNAVAILABLE);
+        }
+    }
 
-        // 生成 Token
-        String token = jwtUtil.generateToken(user.getUsername(), user.getId(), false);
-        return new AuthResponse(token, user.getUsername(), user.getNickname(), false);
+    /**
+     * 用户名是否可用：过滤器判定一定不存在时直接返回，否则查库确认
+     */
+    public boolean isUsernameAvailable(String username) {
+        return !usernameFilter.mightExist(username) || !userMapper.existsByUsername(username);
     }
 
     /**
      * 用户登录
+     * 查询用户在请求线程完成，BCrypt 校验在 passwordHashExecutor 上完成。
      */
-    public AuthResponse login(LoginRequest request) {
-        User user = userMapper.findByUsername(request.getUsername())
+    public CompletableFuture<AuthResponse> login(LoginRequest request) {
+        User user = userLookupCache.findByUsername(request.getUsername())
                 .orElseThrow(() -> new BusinessException(ResultCode.BAD_REQUEST, "用户名或密码错误"));
 
-        // 验证密码
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            throw new BusinessException(ResultCode.BAD_REQUEST, "用户名或密码错误");
-        }
+        return passwordHasher.matches(request.getPassword(), user.getPassword()).thenApply(matches -> {
+            // 验证密码
+            if (!matches) {
+                throw new BusinessException(ResultCode.BAD_REQUEST, "用户名或密码错误");
+            }
 
-        // 生成 Token
-        String token = jwtUtil.generateToken(user.getUsername(), user.getId(), user.getIsGuest());
-        return new AuthResponse(token, user.getUsername(), user.getNickname(), user.getIsGuest());
+            // 生成 Token
+            String token = jwtUtil.generateToken(user.getUsername(), user.getId(), user.getIsGuest());
+            return new AuthResponse(token, user.getUsername(), user.getNickname(), user.getIsGuest());
+        });
     }
 
     /**
      * 游客登录
+     * 用户名由 GuestIdGenerator 在内存中生成，密码使用预先计算的哈希，不做逐个账号的 BCrypt 计算；
+     * 多实例节点号冲突导致唯一索引冲突时换一个 ID 重试。
      */
-    @Transactional
     public AuthResponse loginAsGuest() {
-        // 生成唯一的游客用户名
-        String guestUsername = "guest_" + System.currentTimeMillis();
-
         User user = new User();
-        user.setUsername(guestUsername);
-        user.setPassword(passwordEncoder.encode("guest"));
+        user.setPassword(guestPasswordHash);
         user.setNickname("游客");
         user.setIsGuest(true);
 
-        userMapper.insert(user);
+        for (int attempt = 1; ; attempt++) {
+            user.setUsername(guestIdGenerator.nextUsername());
+            try {
+                userMapper.insert(user);
+                usernameFilter.add(user.getUsername());
+                break;
+            } catch (DuplicateKeyException e) {
+                if (attempt >= GUEST_INSERT_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
 
         // 生成 Token
         String token = jwtUtil.generateToken(user.getUsername(), user.getId(), true);
@@ -90,7 +164,7 @@ public class UserService {
      * 根据用户名获取用户
      */
     public User getUserByUsername(String username) {
-        return userMapper.findByUsername(username)
+        return userLookupCache.findByUsername(username)
                 .orElseThrow(() -> new BusinessException(ResultCode.NOT_FOUND, "用户不存在"));
     }
 
@@ -98,7 +172,7 @@ public class UserService {
      * 根据 ID 获取用户
      */
     public User getUserById(Long id) {
-        return userMapper.findById(id)
+        return userLookupCache.findById(id)
                 .orElseThrow(() -> new BusinessException(ResultCode.NOT_FOUND, "用户不存在"));
     }
 }
@@ -0,0 +1,114 @@
+package com.antigravity.service;
+
+import com.antigravity.mapper.UserMapper;
+import com.antigravity.util.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 用户名布隆过滤器
+ * 启动时流式读取 user 表构建，之后每插入一个用户追加一次；"一定不存在"的查询不再访问数据库。
+ * 加载完成前一律视为"可能存在"，交给数据库判断。
+ * username 列使用 utf8mb4_unicode_ci（忽略大小写、重音与尾部空格），键按同样的规则归一化，
+ * 使排序规则下相等的用户名落到同一组位上；归一化无法覆盖的极少数等价关系最多让可用性提示出错，
+ * 注册时仍由唯一索引兜底。删除的用户（如游客清理）不会从过滤器移除，只会略微提高误判率，重启后重建。
+ */
+@Slf4j
+@Component
+public class UsernameFilter {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final UserMapper userMapper;
+    private final BloomFilter filter;
+    private final long expectedInsertions;
+    private volatile boolean ready;
+
+    private final AtomicLong absentLookups = new AtomicLong();
+    private final AtomicLong databaseLookups = new AtomicLong();
+
+    public UsernameFilter(UserMapper userMapper,
+                          @Value("${auth.username-filter.expected-insertions:1000000}") long expectedInsertions,
+                          @Value("${auth.username-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userMapper = userMapper;
+        this.expectedInsertions = expectedInsertions;
+        this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        userMapper.scanUsernames(context -> add(context.getResultObject()));
+        ready = true;
+        log.info("用户名过滤器加载完成: usernames={}, bytes={}, hashFunctions={}, expectedFpp={}, elapsed={}ms",
+                filter.getInsertions(), filter.getByteSize(), filter.getHashFunctions(),
+                String.format("%.4f", filter.getExpectedFalsePositiveRate()), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 新用户插入成功后调用
+     */
+    public void add(String username) {
+        filter.add(normalize(username));
+        if (filter.getInsertions() == expectedInsertions + 1) {
+            log.warn("用户名数量已超过 auth.username-filter.expected-insertions={}，误判率将上升", expectedInsertions);
+        }
+    }
+
+    /**
+     * false 表示一定不存在；true 表示可能存在，需要查库确认
+     */
+    public boolean mightExist(String username) {
+        if (ready && !filter.mightContain(normalize(username))) {
+            absentLookups.incrementAndGet();
+            return false;
+        }
+        databaseLookups.incrementAndGet();
+        return true;
+    }
+
+    public long getByteSize() {
+        return filter.getByteSize();
+    }
+
+    public double getExpectedFalsePositiveRate() {
+        return filter.getExpectedFalsePositiveRate();
+    }
+
+    /**
+     * 被过滤器直接判定为不存在、未访问数据库的查询数
+     */
+    public long getAbsentLookups() {
+        return absentLookups.get();
+    }
+
+    /**
+     * 过滤器判定可能存在（或尚未加载完成）、需要查库的查询数
+     */
+    public long getDatabaseLookups() {
+        return databaseLookups.get();
+    }
+
+    /**
+     * 近似 utf8mb4_unicode_ci 的比较规则：兼容分解后去掉组合附加符号，大小写折叠（ß → ss），去掉尾部空格
+     */
+    static String normalize(String username) {
+        String decomposed = Normalizer.normalize(username, Normalizer.Form.NFKD);
+        String folded = COMBINING_MARKS.matcher(decomposed).replaceAll("")
+                .toUpperCase(Locale.ROOT)
+                .toLowerCase(Locale.ROOT);
+        int end = folded.length();
+        while (end > 0 && folded.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return folded.substring(0, end);
+    }
+}
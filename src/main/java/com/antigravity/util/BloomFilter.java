@@ -0,0 +1,112 @@
+package com.antigravity.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 字符串布隆过滤器
+ * 按预期元素数和目标误判率计算位数组大小与哈希函数个数，位数组用 AtomicLongArray 存放，
+ * add / mightContain 可并发调用且不加锁。只会误报（mightContain 为 true 但实际不存在），不会漏报。
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final AtomicLong insertions = new AtomicLong();
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions 必须大于 0: " + expectedInsertions);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate 必须在 (0, 1) 之间: " + falsePositiveRate);
+        }
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = Math.toIntExact((optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitSize = (long) words * 64;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    }
+
+    public void add(String value) {
+        long hash1 = hash(value);
+        long hash2 = fmix64(hash1 ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Long.remainderUnsigned(hash1 + i * hash2, bitSize);
+            setBit(index);
+        }
+        insertions.incrementAndGet();
+    }
+
+    public boolean mightContain(String value) {
+        long hash1 = hash(value);
+        long hash2 = fmix64(hash1 ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Long.remainderUnsigned(hash1 + i * hash2, bitSize);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 位数组占用的字节数
+     */
+    public long getByteSize() {
+        return bitSize / 8;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    /**
+     * 已插入次数（重复插入同一值也会计数）
+     */
+    public long getInsertions() {
+        return insertions.get();
+    }
+
+    /**
+     * 按当前插入数估算的误判率：(1 - e^(-k·n/m))^k
+     */
+    public double getExpectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashFunctions * insertions.get() / bitSize), hashFunctions);
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    /**
+     * UTF-8 字节的 FNV-1a，再经 MurmurHash3 的 fmix64 打散
+     */
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001B3L;
+        }
+        return fmix64(hash);
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,202 @@
+package com.antigravity.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 带跨度索引的跳表（order-statistic skip list）
+ * 按 score 降序、key 升序排列，插入、删除、查名次均为 O(log n)，取前 N 名为 O(log n + N)。
+ * 分数和 key 以原始 long 存放在节点中；本类不是线程安全的，由调用方加锁。
+ */
+public class IndexedSkipList {
+
+    private static final int MAX_LEVEL = 32;
+    private static final double LEVEL_PROBABILITY = 0.25;
+
+    /**
+     * 排名条目
+     *
+     * @param rank 名次，从 1 开始
+     */
+    public record Entry(int rank, long key, long score) {
+    }
+
+    private static final class Node {
+        final long key;
+        final long score;
+        final Node[] next;
+        /**
+         * span[i]：沿第 i 层从本节点走到 next[i] 跨过的底层节点数
+         */
+        final int[] span;
+
+        Node(long key, long score, int level) {
+            this.key = key;
+            this.score = score;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+    }
+
+    private final Node head = new Node(0, 0, MAX_LEVEL);
+    private final HashMap<Long, Node> nodes = new HashMap<>();
+    private int level = 1;
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * 返回 key 当前的分数，不存在时返回 defaultScore
+     */
+    public long scoreOf(long key, long defaultScore) {
+        Node node = nodes.get(key);
+        return node != null ? node.score : defaultScore;
+    }
+
+    /**
+     * 插入或更新 key 的分数
+     */
+    public void put(long key, long score) {
+        Node existing = nodes.get(key);
+        if (existing != null) {
+            if (existing.score == score) {
+                return;
+            }
+            delete(existing);
+        }
+        nodes.put(key, insert(key, score));
+    }
+
+    public boolean remove(long key) {
+        Node node = nodes.remove(key);
+        if (node == null) {
+            return false;
+        }
+        delete(node);
+        return true;
+    }
+
+    /**
+     * key 的名次（从 1 开始），不存在时返回 0
+     */
+    public int rankOf(long key) {
+        Node target = nodes.get(key);
+        if (target == null) {
+            return 0;
+        }
+
+        int rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && !precedes(target.score, target.key, x.next[i])) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x == target) {
+                return rank;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 前 limit 名
+     */
+    public List<Entry> top(int limit) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, size()));
+        Node x = head.next[0];
+        int rank = 1;
+        while (x != null && rank <= limit) {
+            result.add(new Entry(rank++, x.key, x.score));
+            x = x.next[0];
+        }
+        return result;
+    }
+
+    private Node insert(long key, long score) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = (i == level - 1) ? 0 : rank[i + 1];
+            while (x.next[i] != null && precedes(x.next[i].score, x.next[i].key, score, key)) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                update[i].span[i] = size();
+            }
+            level = nodeLevel;
+        }
+
+        Node node = new Node(key, score, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = (rank[0] - rank[i]) + 1;
+        }
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        return node;
+    }
+
+    private void delete(Node node) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && x.next[i] != node
+                    && precedes(x.next[i].score, x.next[i].key, node.score, node.key)) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == node) {
+                update[i].span[i] += node.span[i] - 1;
+                update[i].next[i] = node.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+    }
+
+    /**
+     * (scoreA, keyA) 是否排在 (scoreB, keyB) 之前：分数高者在前，同分时 key 小者在前
+     */
+    private static boolean precedes(long scoreA, long keyA, long scoreB, long keyB) {
+        return scoreA > scoreB || (scoreA == scoreB && keyA < keyB);
+    }
+
+    /**
+     * 目标节点 (score, key) 是否排在 node 之前（即查名次时不应越过 node）
+     */
+    private static boolean precedes(long score, long key, Node node) {
+        return precedes(score, key, node.score, node.key);
+    }
+
+    private static int randomLevel() {
+        int nodeLevel = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (nodeLevel < MAX_LEVEL && random.nextDouble() < LEVEL_PROBABILITY) {
+            nodeLevel++;
+        }
+        return nodeLevel;
+    }
+}
@@ -1,16 +1,30 @@
 package com.antigravity.util;
 
+import com.antigravity.security.JwtPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JWT 工具类
@@ -24,8 +38,44 @@ public class JwtUtil {
     @Value("${jwt.expiration:86400000}") // 默认 24 小时
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${jwt.sse-ticket.ttl:30s}")
+    private Duration sseTicketTtl;
+
+    /**
+     * 事件流票据的 typ 声明；带 typ 的 Token 不能当作登录 Token 使用，反之亦然
+     */
+    private static final String TOKEN_TYPE_CLAIM = "typ";
+    private static final String SSE_TICKET_TYPE = "sse";
+
+    private SecretKey signingKey;
+
+    private JwtParser jwtParser;
+
+    /**
+     * 已验签 Token 缓存：key 为 Token 的 SHA-256 摘要，条目在 Token 的 exp 时刻过期
+     */
+    private Cache<ByteBuffer, Claims> verifiedTokens;
+
+    /**
+     * 已兑换的事件流票据 ID，保留到票据过期，保证一张票据只能建立一次连接
+     */
+    private Cache<String, Boolean> redeemedTickets;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        jwtParser = Jwts.parser().verifyWith(signingKey).build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        redeemedTickets = Caffeine.newBuilder()
+                .expireAfterWrite(sseTicketTtl)
+                .build();
     }
 
     /**
@@ -41,10 +91,48 @@ public class JwtUtil {
                 .subject(username)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
+    /**
+     * 为已登录用户签发事件流票据
+     * 浏览器 EventSource 无法设置请求头，只能把凭证放在 URL 里；URL 会进入代理 / 访问日志和浏览器历史，
+     * 因此放的是有效期很短（jwt.sse-ticket.ttl）、只能兑换一次的票据，而不是 24 小时的登录 Token。
+     * 票据自带签名，任一实例都能校验；一次性由兑换所在实例保证，过期后在所有实例上都失效。
+     */
+    public String generateSseTicket(JwtPrincipal principal) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .id(UUID.randomUUID().toString())
+                .claim(TOKEN_TYPE_CLAIM, SSE_TICKET_TYPE)
+                .claim("userId", principal.userId())
+                .claim("isGuest", principal.isGuest())
+                .subject(principal.username())
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + sseTicketTtl.toMillis()))
+                .signWith(signingKey)
+                .compact();
+    }
+
+    public Duration getSseTicketTtl() {
+        return sseTicketTtl;
+    }
+
+    /**
+     * 兑换事件流票据：校验签名、有效期与类型，并且每张票据只能兑换一次；无效时抛出 JwtException
+     */
+    public JwtPrincipal redeemSseTicket(String ticket) {
+        Claims claims = jwtParser.parseSignedClaims(ticket).getPayload();
+        if (!SSE_TICKET_TYPE.equals(claims.get(TOKEN_TYPE_CLAIM, String.class)) || claims.getId() == null) {
+            throw new JwtException("不是事件流票据");
+        }
+        if (redeemedTickets.asMap().putIfAbsent(claims.getId(), Boolean.TRUE) != null) {
+            throw new JwtException("事件流票据已使用");
+        }
+        return toPrincipal(claims);
+    }
+
     /**
      * 从 Token 中提取用户名
      */
@@ -61,14 +149,30 @@ public class JwtUtil {
     }
 
     /**
-     * 从 Token 中提取 Claims
+     * 解析并验证 Token，返回认证主体
+     * 签名和过期时间在一次解析中完成校验，无效时抛出 JwtException。
+     */
+    public JwtPrincipal parseToken(String token) {
+        Claims claims = getClaimsFromToken(token);
+        if (claims.get(TOKEN_TYPE_CLAIM) != null) {
+            throw new JwtException("票据不能作为登录 Token 使用");
+        }
+        return toPrincipal(claims);
+    }
+
+    private static JwtPrincipal toPrincipal(Claims claims) {
+        return new JwtPrincipal(
+                claims.get("userId", Long.class),
+                claims.getSubject(),
+                Boolean.TRUE.equals(claims.get("isGuest", Boolean.class)));
+    }
+
+    /**
+     * 从 Token 中提取 Claims（过期的 Token 会在解析时直接抛出 ExpiredJwtException）
+     * 验签成功的结果按 Token 摘要缓存，轮询请求命中缓存时不再做 HMAC 校验；验签失败不缓存。
      */
     private Claims getClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return verifiedTokens.get(digest(token), key -> jwtParser.parseSignedClaims(token).getPayload());
     }
 
     /**
@@ -77,17 +181,55 @@ public class JwtUtil {
     public boolean validateToken(String token) {
         try {
             getClaimsFromToken(token);
-            return !isTokenExpired(token);
+            return true;
         } catch (Exception e) {
             return false;
         }
     }
 
     /**
-     * 检查 Token 是否过期
+     * 已验签 Token 缓存的命中/未命中统计
+     */
+    public CacheStats getTokenCacheStats() {
+        return verifiedTokens.stats();
+    }
+
+    /**
+     * 已验签 Token 缓存的当前条目数（近似值）
+     */
+    public long getTokenCacheSize() {
+        return verifiedTokens.estimatedSize();
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    /**
+     * 按 Token 自身的 exp 计算缓存条目的存活时间，读取不会延长寿命
      */
-    private boolean isTokenExpired(String token) {
-        Date expiration = getClaimsFromToken(token).getExpiration();
-        return expiration.before(new Date());
+    private final class TokenExpiry implements Expiry<ByteBuffer, Claims> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Claims claims, long currentTime) {
+            Date exp = claims.getExpiration();
+            long ttlMillis = exp != null ? exp.getTime() - System.currentTimeMillis() : expiration;
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
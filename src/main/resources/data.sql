@@ -1 +1,2 @@
-INSERT IGNORE INTO user_level (id, total_experience, cultivation_rank) VALUES (1, 0, '炼气期 - 1层');
+INSERT IGNORE INTO user_level (id, total_experience) VALUES (1, 0);
+INSERT IGNORE INTO focus_stats_backfill (id) VALUES (1);
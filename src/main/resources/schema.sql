@@ -17,10 +17,11 @@ CREATE TABLE IF NOT EXISTS focus_task (
     user_id BIGINT COMMENT '用户ID',
     task_name VARCHAR(255),
     duration_seconds INT,
-    status VARCHAR(20) DEFAULT 'RUNNING',
+    status TINYINT UNSIGNED NOT NULL DEFAULT 1 COMMENT '任务状态：1 运行中 2 已完成 3 已放弃 4 已超时',
     started_at TIMESTAMP NULL,
     expected_end_at TIMESTAMP NULL,
     completed_at TIMESTAMP NULL,
+    client_session_id VARCHAR(64) NULL COMMENT '离线同步的客户端幂等键',
     FOREIGN KEY (user_id) REFERENCES user(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
@@ -28,11 +29,234 @@ CREATE TABLE IF NOT EXISTS user_level (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     user_id BIGINT UNIQUE COMMENT '用户ID',
     total_experience BIGINT DEFAULT 0,
-    cultivation_rank VARCHAR(255) DEFAULT 'Mortal',
+    -- 境界编码 0-161（18 境 x 9 层），由修为推导：第 n 级门槛为 300 * n^2，与 CultivationRank 的门槛表一致
+    rank_code TINYINT UNSIGNED AS (LEAST(161, FLOOR(SQRT(IFNULL(total_experience, 0) DIV 300)))) STORED COMMENT '境界编码',
+    INDEX idx_user_level_rank (rank_code),
     FOREIGN KEY (user_id) REFERENCES user(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+-- 归档层：已结束且超过保留期的任务由 TaskArchiver 分批从 focus_task 迁入，列与 focus_task 一致、保留原 id
+-- 分区表不支持外键，因此采用独立归档表而不是按月分区，级联删除照常生效
+CREATE TABLE IF NOT EXISTS focus_task_archive (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT COMMENT '用户ID',
+    task_name VARCHAR(255),
+    duration_seconds INT,
+    status TINYINT UNSIGNED NOT NULL DEFAULT 1 COMMENT '任务状态：1 运行中 2 已完成 3 已放弃 4 已超时',
+    started_at TIMESTAMP NULL,
+    expected_end_at TIMESTAMP NULL,
+    completed_at TIMESTAMP NULL,
+    client_session_id VARCHAR(64) NULL COMMENT '离线同步的客户端幂等键',
+    INDEX idx_focus_task_archive_user_status_completed (user_id, status, completed_at),
+    FOREIGN KEY (user_id) REFERENCES user(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 专注统计汇总：每用户每天一行，完成任务时在同一事务内累加
+CREATE TABLE IF NOT EXISTS focus_daily_stats (
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    stat_date DATE NOT NULL COMMENT '完成日期',
+    focus_seconds BIGINT NOT NULL DEFAULT 0 COMMENT '当日累计专注秒数',
+    task_count INT NOT NULL DEFAULT 0 COMMENT '当日完成任务数',
+    PRIMARY KEY (user_id, stat_date),
+    FOREIGN KEY (user_id) REFERENCES user(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 专注统计汇总：每用户每个任务名一行
+CREATE TABLE IF NOT EXISTS focus_task_name_stats (
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    task_name VARCHAR(255) NOT NULL COMMENT '任务名',
+    focus_seconds BIGINT NOT NULL DEFAULT 0 COMMENT '累计专注秒数',
+    task_count INT NOT NULL DEFAULT 0 COMMENT '完成任务数',
+    PRIMARY KEY (user_id, task_name),
+    FOREIGN KEY (user_id) REFERENCES user(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 统计回填进度：只有一行（id = 1）。每段回填写入后记录已完成的最大用户 ID，最后一段提交后才置 completed，
+-- 中断后下次启动从 last_user_id 之后继续
+CREATE TABLE IF NOT EXISTS focus_stats_backfill (
+    id TINYINT PRIMARY KEY,
+    last_user_id BIGINT NOT NULL DEFAULT 0 COMMENT '已回填到的用户ID',
+    completed BOOLEAN NOT NULL DEFAULT FALSE COMMENT '是否已全部回填',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 任务列表版本：任务开始、完成、放弃、超时与离线同步时在写入所在事务内递增，作为 /tasks、/history 的 ETag
+-- 存在库里而不是实例内存中，多实例部署时任一实例读到的都是同一个版本
+CREATE TABLE IF NOT EXISTS focus_task_version (
+    user_id BIGINT PRIMARY KEY COMMENT '用户ID',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '任务列表版本号',
+    FOREIGN KEY (user_id) REFERENCES user(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 历史记录游标分页索引：按 (user_id, status, completed_at) 倒序范围扫描，避免对用户全部任务 filesort
+-- MySQL 不支持 ADD INDEX IF NOT EXISTS，先查 information_schema 再决定是否执行
+SET @ddl = (
+    SELECT IF(COUNT(*) = 0,
+        'ALTER TABLE focus_task ADD INDEX idx_focus_task_user_status_completed (user_id, status, completed_at)',
+        'DO 0')
+    FROM information_schema.STATISTICS
+    WHERE TABLE_SCHEMA = DATABASE()
+      AND TABLE_NAME = 'focus_task'
+      AND INDEX_NAME = 'idx_focus_task_user_status_completed'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 归档扫描索引：按 completed_at 取最早结束的一批任务
+SET @ddl = (
+    SELECT IF(COUNT(*) = 0,
+        'ALTER TABLE focus_task ADD INDEX idx_focus_task_completed (completed_at)',
+        'DO 0')
+    FROM information_schema.STATISTICS
+    WHERE TABLE_SCHEMA = DATABASE()
+      AND TABLE_NAME = 'focus_task'
+      AND INDEX_NAME = 'idx_focus_task_completed'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 游客清理索引：按 (is_guest, id) 游标分段扫描游客
+SET @ddl = (
+    SELECT IF(COUNT(*) = 0,
+        'ALTER TABLE user ADD INDEX idx_user_guest (is_guest, id)',
+        'DO 0')
+    FROM information_schema.STATISTICS
+    WHERE TABLE_SCHEMA = DATABASE()
+      AND TABLE_NAME = 'user'
+      AND INDEX_NAME = 'idx_user_guest'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 离线同步幂等键：(user_id, client_session_id) 唯一，NULL（在线创建的任务）不受约束；归档表同样保留
+SET @ddl = (
+    SELECT IF(COUNT(*) = 0,
+        'ALTER TABLE focus_task ADD COLUMN client_session_id VARCHAR(64) NULL COMMENT ''离线同步的客户端幂等键''',
+        'DO 0')
+    FROM information_schema.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE()
+      AND TABLE_NAME = 'focus_task'
+      AND COLUMN_NAME = 'client_session_id'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = (
+    SELECT IF(COUNT(*) = 0,
+        'ALTER TABLE focus_task ADD UNIQUE INDEX uq_focus_task_user_client_session (user_id, client_session_id)',
+        'DO 0')
+    FROM information_schema.STATISTICS
+    WHERE TABLE_SCHEMA = DATABASE()
+      AND TABLE_NAME = 'focus_task'
+      AND INDEX_NAME = 'uq_focus_task_user_client_session'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = (
+    SELECT IF(COUNT(*) = 0,
+        'ALTER TABLE focus_task_archive ADD COLUMN client_session_id VARCHAR(64) NULL COMMENT ''离线同步的客户端幂等键''',
+        'DO 0')
+    FROM information_schema.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE()
+      AND TABLE_NAME = 'focus_task_archive'
+      AND COLUMN_NAME = 'client_session_id'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = (
+    SELECT IF(COUNT(*) = 0,
+        'ALTER TABLE focus_task_archive ADD UNIQUE INDEX uq_focus_task_archive_user_client_session (user_id, client_session_id)',
+        'DO 0')
+    FROM information_schema.STATISTICS
+    WHERE TABLE_SCHEMA = DATABASE()
+      AND TABLE_NAME = 'focus_task_archive'
+      AND INDEX_NAME = 'uq_focus_task_archive_user_client_session'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 境界改为由修为推导的生成列：旧表补上 rank_code 及索引
+-- 旧的境界字符串列 cultivation_rank 不再读写但暂时保留（可空、有默认值，新版本插入不受影响），
+-- 滚动发布期间旧版本实例仍可读写它，也可以回滚；待所有实例升级后在后续版本中删除
+SET @ddl = (
+    SELECT IF(COUNT(*) = 0,
+        'ALTER TABLE user_level ADD COLUMN rank_code TINYINT UNSIGNED AS (LEAST(161, FLOOR(SQRT(IFNULL(total_experience, 0) DIV 300)))) STORED COMMENT ''境界编码''',
+        'DO 0')
+    FROM information_schema.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE()
+      AND TABLE_NAME = 'user_level'
+      AND COLUMN_NAME = 'rank_code'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = (
+    SELECT IF(COUNT(*) = 0,
+        'ALTER TABLE user_level ADD INDEX idx_user_level_rank (rank_code)',
+        'DO 0')
+    FROM information_schema.STATISTICS
+    WHERE TABLE_SCHEMA = DATABASE()
+      AND TABLE_NAME = 'user_level'
+      AND INDEX_NAME = 'idx_user_level_rank'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 任务状态由 VARCHAR 改为 TINYINT：旧表先加可空的 status_code（INSTANT），
+-- 由 TaskStatusMigration 在启动时按 id 分段回填，再原地替换 status 列并重建索引
+SET @ddl = (
+    SELECT IF(SUM(COLUMN_NAME = 'status' AND DATA_TYPE = 'varchar') = 1 AND SUM(COLUMN_NAME = 'status_code') = 0,
+        'ALTER TABLE focus_task ADD COLUMN status_code TINYINT UNSIGNED NULL',
+        'DO 0')
+    FROM information_schema.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE()
+      AND TABLE_NAME = 'focus_task'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = (
+    SELECT IF(SUM(COLUMN_NAME = 'status' AND DATA_TYPE = 'varchar') = 1 AND SUM(COLUMN_NAME = 'status_code') = 0,
+        'ALTER TABLE focus_task_archive ADD COLUMN status_code TINYINT UNSIGNED NULL',
+        'DO 0')
+    FROM information_schema.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE()
+      AND TABLE_NAME = 'focus_task_archive'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 运行中任务索引：selectRunningTasksByUserId 按 (user_id, status, started_at) 倒序范围扫描；旧表由迁移完成后补建
+SET @ddl = (
+    SELECT IF(
+        (SELECT COUNT(*) FROM information_schema.STATISTICS
+         WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'focus_task'
+           AND INDEX_NAME = 'idx_focus_task_user_status_started') = 0
+        AND (SELECT DATA_TYPE FROM information_schema.COLUMNS
+             WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'focus_task' AND COLUMN_NAME = 'status') = 'tinyint',
+        'ALTER TABLE focus_task ADD INDEX idx_focus_task_user_status_started (user_id, status, started_at)',
+        'DO 0')
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
 -- 强制确保现有表的编码正确
 ALTER TABLE user CONVERT TO CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
 ALTER TABLE focus_task CONVERT TO CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
 ALTER TABLE user_level CONVERT TO CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
+ALTER TABLE focus_task_archive CONVERT TO CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
+ALTER TABLE focus_task_name_stats CONVERT TO CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
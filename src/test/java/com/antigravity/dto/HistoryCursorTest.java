@@ -0,0 +1,55 @@
+package com.antigravity.dto;
+
+import com.antigravity.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HistoryCursorTest {
+
+    @Test
+    void roundTrips() {
+        HistoryCursor cursor = new HistoryCursor(LocalDateTime.of(2024, 5, 17, 8, 30, 15), 42L);
+
+        assertThat(HistoryCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void roundTripsFractionalSecondsAndLargeIds() {
+        HistoryCursor cursor = new HistoryCursor(LocalDateTime.of(2024, 12, 31, 23, 59, 59, 123_456_000), Long.MAX_VALUE);
+
+        assertThat(HistoryCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void encodesAsUrlSafeUnpaddedText() {
+        String encoded = new HistoryCursor(LocalDateTime.of(2024, 1, 1, 0, 0), 7L).encode();
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertInvalid("not base64!");
+        assertInvalid(base64("2024-01-01T00:00"));
+        assertInvalid(base64("yesterday,1"));
+        assertInvalid(base64("2024-01-01T00:00,abc"));
+        assertInvalid("");
+    }
+
+    private static void assertInvalid(String cursor) {
+        assertThatThrownBy(() -> HistoryCursor.decode(cursor))
+                .isInstanceOf(BusinessException.class)
+                .extracting(e -> ((BusinessException) e).getCode())
+                .isEqualTo(400);
+    }
+
+    private static String base64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,54 @@
+package com.antigravity.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CultivationRankTest {
+
+  /**
+   * Java mirror of the user_level.rank_code expression:
+   * LEAST(161, FLOOR(SQRT(IFNULL(total_experience, 0) DIV 300)))
+   */
+  private static int sqlRankCode(long totalExperience) {
+    return (int) Math.min(161, (long) Math.floor(Math.sqrt(totalExperience / CultivationRank.EXPERIENCE_UNIT)));
+  }
+
+  @Test
+  void agreesWithRankCodeColumnAroundEveryThreshold() {
+    for (int code = 0; code <= CultivationRank.MAX.code() + 1; code++) {
+      long threshold = CultivationRank.EXPERIENCE_UNIT * code * code;
+      for (long experience = threshold - 1; experience <= threshold + 1; experience++) {
+        if (experience < 0) {
+          continue;
+        }
+        assertThat(CultivationRank.forExperience(experience).code())
+            .as("experience %d", experience)
+            .isEqualTo(sqlRankCode(experience));
+      }
+    }
+  }
+
+  @Test
+  void thresholdsStartEachRank() {
+    for (int code = 0; code <= CultivationRank.MAX.code(); code++) {
+      CultivationRank rank = CultivationRank.of(code);
+      assertThat(rank.code()).isEqualTo(code);
+      assertThat(rank.minExperience()).isEqualTo(CultivationRank.EXPERIENCE_UNIT * code * code);
+      assertThat(CultivationRank.forExperience(rank.minExperience())).isSameAs(rank);
+    }
+  }
+
+  @Test
+  void boundsAndNames() {
+    assertThat(CultivationRank.forExperience(-5)).isSameAs(CultivationRank.INITIAL);
+    assertThat(CultivationRank.forExperience(Long.MAX_VALUE)).isSameAs(CultivationRank.MAX);
+    assertThat(CultivationRank.MAX.code()).isEqualTo(161);
+    assertThat(CultivationRank.INITIAL.displayName()).isEqualTo("炼气期 - 1层");
+    assertThat(CultivationRank.of(9).displayName()).isEqualTo("筑基期 - 1层");
+    assertThat(CultivationRank.MAX.displayName()).isEqualTo("创世神 - 9层");
+    assertThatThrownBy(() -> CultivationRank.of(162)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> CultivationRank.of(-1)).isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,67 @@
+package com.antigravity.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTest {
+
+    @Test
+    void neverReportsAnAddedValueAsAbsent() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("user-" + i)).as("user-%d", i).isTrue();
+        }
+        assertThat(filter.getInsertions()).isEqualTo(10_000);
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user-" + i);
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("absent-" + i)) {
+                falsePositives++;
+            }
+        }
+        // 目标 1%，留出余量避免偶然波动
+        assertThat((double) falsePositives / probes).isLessThan(0.02);
+        assertThat(filter.getExpectedFalsePositiveRate()).isLessThan(0.02);
+    }
+
+    @Test
+    void handlesNonAsciiAndEmptyValues() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        filter.add("修仙者");
+        filter.add("");
+
+        assertThat(filter.mightContain("修仙者")).isTrue();
+        assertThat(filter.mightContain("")).isTrue();
+    }
+
+    @Test
+    void sizesFromExpectedInsertionsAndRate() {
+        BloomFilter filter = new BloomFilter(1_000_000, 0.01);
+
+        // m = -n·ln(p) / ln(2)^2 ≈ 9.59 bit / 元素，k = m/n·ln(2) ≈ 7
+        assertThat(filter.getByteSize()).isBetween(1_190_000L, 1_210_000L);
+        assertThat(filter.getHashFunctions()).isEqualTo(7);
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThatThrownBy(() -> new BloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(100, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(100, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,97 @@
+package com.antigravity.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndexedSkipListTest {
+
+    /**
+     * 排序参照：分数降序、key 升序，与 IndexedSkipList 的顺序一致
+     */
+    private static final Comparator<long[]> ORDER = Comparator.<long[]>comparingLong(e -> -e[1])
+            .thenComparingLong(e -> e[0]);
+
+    @Test
+    void emptyList() {
+        IndexedSkipList list = new IndexedSkipList();
+
+        assertThat(list.size()).isZero();
+        assertThat(list.rankOf(1)).isZero();
+        assertThat(list.top(10)).isEmpty();
+        assertThat(list.remove(1)).isFalse();
+        assertThat(list.scoreOf(1, -1)).isEqualTo(-1);
+    }
+
+    @Test
+    void tiesAreOrderedByKey() {
+        IndexedSkipList list = new IndexedSkipList();
+        list.put(30, 100);
+        list.put(10, 100);
+        list.put(20, 200);
+
+        assertThat(list.top(3)).containsExactly(
+                new IndexedSkipList.Entry(1, 20, 200),
+                new IndexedSkipList.Entry(2, 10, 100),
+                new IndexedSkipList.Entry(3, 30, 100));
+        assertThat(list.rankOf(30)).isEqualTo(3);
+    }
+
+    @Test
+    void matchesSortedReferenceUnderRandomPutUpdateAndRemove() {
+        Random random = new Random(20240517L);
+        IndexedSkipList list = new IndexedSkipList();
+        Map<Long, Long> scores = new HashMap<>();
+        TreeMap<long[], Boolean> reference = new TreeMap<>(ORDER);
+
+        for (int step = 0; step < 20_000; step++) {
+            // key 与分数取值范围都较小，保证频繁出现更新、同分和删除不存在的 key
+            long key = random.nextInt(500);
+            int op = random.nextInt(10);
+            if (op < 6) {
+                long score = random.nextInt(200);
+                Long previous = scores.put(key, score);
+                if (previous != null) {
+                    reference.remove(new long[]{key, previous});
+                }
+                reference.put(new long[]{key, score}, Boolean.TRUE);
+                list.put(key, score);
+            } else if (op < 9) {
+                Long previous = scores.remove(key);
+                if (previous != null) {
+                    reference.remove(new long[]{key, previous});
+                }
+                assertThat(list.remove(key)).isEqualTo(previous != null);
+            } else {
+                assertConsistent(list, scores, reference);
+            }
+            assertThat(list.size()).isEqualTo(scores.size());
+        }
+        assertConsistent(list, scores, reference);
+    }
+
+    private static void assertConsistent(IndexedSkipList list, Map<Long, Long> scores,
+                                         TreeMap<long[], Boolean> reference) {
+        List<IndexedSkipList.Entry> expected = new ArrayList<>();
+        int rank = 1;
+        for (long[] entry : reference.keySet()) {
+            expected.add(new IndexedSkipList.Entry(rank++, entry[0], entry[1]));
+        }
+
+        assertThat(list.top(Integer.MAX_VALUE)).containsExactlyElementsOf(expected);
+        assertThat(list.top(10)).containsExactlyElementsOf(expected.subList(0, Math.min(10, expected.size())));
+        for (IndexedSkipList.Entry entry : expected) {
+            assertThat(list.rankOf(entry.key())).as("rank of %d", entry.key()).isEqualTo(entry.rank());
+            assertThat(list.scoreOf(entry.key(), -1)).isEqualTo(scores.get(entry.key()));
+        }
+        assertThat(list.rankOf(10_000)).isZero();
+    }
+}
@@ -0,0 +1,54 @@
+package com.antigravity.util;
+
+import com.antigravity.security.JwtPrincipal;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "test-secret-key-that-is-at-least-256-bits-long-0123456789");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 100L);
+        ReflectionTestUtils.setField(jwtUtil, "sseTicketTtl", Duration.ofSeconds(30));
+        jwtUtil.init();
+    }
+
+    @Test
+    void sseTicketCanBeRedeemedOnlyOnce() {
+        String ticket = jwtUtil.generateSseTicket(new JwtPrincipal(7L, "alice", false));
+
+        JwtPrincipal principal = jwtUtil.redeemSseTicket(ticket);
+        assertThat(principal).isEqualTo(new JwtPrincipal(7L, "alice", false));
+        assertThatThrownBy(() -> jwtUtil.redeemSseTicket(ticket)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void ticketsAndLoginTokensAreNotInterchangeable() {
+        String token = jwtUtil.generateToken("alice", 7L, false);
+        String ticket = jwtUtil.generateSseTicket(new JwtPrincipal(7L, "alice", false));
+
+        assertThat(jwtUtil.parseToken(token).userId()).isEqualTo(7L);
+        assertThatThrownBy(() -> jwtUtil.redeemSseTicket(token)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> jwtUtil.parseToken(ticket)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void expiredTicketIsRejected() {
+        ReflectionTestUtils.setField(jwtUtil, "sseTicketTtl", Duration.ofMillis(-1));
+        String ticket = jwtUtil.generateSseTicket(new JwtPrincipal(7L, "alice", false));
+
+        assertThatThrownBy(() -> jwtUtil.redeemSseTicket(ticket)).isInstanceOf(JwtException.class);
+    }
+}